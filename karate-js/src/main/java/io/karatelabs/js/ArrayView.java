@@ -0,0 +1,327 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// list view that reads and writes a java array in place, no copy or up-front boxing
+// a change in size (push, splice etc.) detaches the view into a plain list from then on
+abstract class ArrayView extends AbstractList<Object> implements RandomAccess {
+
+    private List<Object> detached;
+
+    abstract Object array();
+
+    abstract int length();
+
+    abstract Object read(int index);
+
+    abstract void write(int index, Object value);
+
+    static List<Object> of(Object array) {
+        Class<?> type = array.getClass().getComponentType();
+        if (!type.isPrimitive()) {
+            return new ObjectArray((Object[]) array);
+        } else if (type == int.class) {
+            return new IntArray((int[]) array);
+        } else if (type == double.class) {
+            return new DoubleArray((double[]) array);
+        } else if (type == long.class) {
+            return new LongArray((long[]) array);
+        } else if (type == byte.class) {
+            return new ByteArray((byte[]) array);
+        }
+        return new Reflective(array); // float, short, char, boolean
+    }
+
+    // the backing array if this view has not been detached and holds the requested type
+    static Object unwrap(List<?> list, Class<?> componentType) {
+        if (list instanceof ArrayView) {
+            ArrayView view = (ArrayView) list;
+            if (view.detached == null && view.array().getClass().getComponentType() == componentType) {
+                return view.array();
+            }
+        }
+        return null;
+    }
+
+    private List<Object> detach() {
+        if (detached == null) {
+            int count = length();
+            detached = new ArrayList<>(count + 1);
+            for (int i = 0; i < count; i++) {
+                detached.add(read(i));
+            }
+        }
+        return detached;
+    }
+
+    private int check(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + length());
+        }
+        return index;
+    }
+
+    private static Number number(Object value) {
+        return value instanceof Number ? (Number) value : Terms.toNumber(value);
+    }
+
+    static char character(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        String text = String.valueOf(value);
+        if (text.length() != 1) {
+            throw new RuntimeException("cannot convert '" + text + "' to char, expected a single character");
+        }
+        return text.charAt(0);
+    }
+
+    @Override
+    public int size() {
+        return detached == null ? length() : detached.size();
+    }
+
+    @Override
+    public Object get(int index) {
+        return detached == null ? read(check(index)) : detached.get(index);
+    }
+
+    @Override
+    public Object set(int index, Object value) {
+        if (detached != null) {
+            return detached.set(index, value);
+        }
+        Object previous = read(check(index));
+        write(index, value);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Object value) {
+        detach().add(index, value);
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        Object removed = detach().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    static class ObjectArray extends ArrayView {
+
+        final Object[] array;
+
+        ObjectArray(Object[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return array.length;
+        }
+
+        @Override
+        Object read(int index) {
+            return array[index];
+        }
+
+        @Override
+        void write(int index, Object value) {
+            array[index] = value;
+        }
+
+    }
+
+    static class IntArray extends ArrayView {
+
+        final int[] array;
+
+        IntArray(int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return array.length;
+        }
+
+        @Override
+        Object read(int index) {
+            return array[index];
+        }
+
+        @Override
+        void write(int index, Object value) {
+            array[index] = (Integer) JavaConverter.toExactNumber(int.class, number(value));
+        }
+
+    }
+
+    static class DoubleArray extends ArrayView {
+
+        final double[] array;
+
+        DoubleArray(double[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return array.length;
+        }
+
+        @Override
+        Object read(int index) {
+            return array[index];
+        }
+
+        @Override
+        void write(int index, Object value) {
+            array[index] = number(value).doubleValue();
+        }
+
+    }
+
+    static class LongArray extends ArrayView {
+
+        final long[] array;
+
+        LongArray(long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return array.length;
+        }
+
+        @Override
+        Object read(int index) {
+            return array[index];
+        }
+
+        @Override
+        void write(int index, Object value) {
+            array[index] = (Long) JavaConverter.toExactNumber(long.class, number(value));
+        }
+
+    }
+
+    static class ByteArray extends ArrayView {
+
+        final byte[] array;
+
+        ByteArray(byte[] array) {
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return array.length;
+        }
+
+        @Override
+        Object read(int index) {
+            return array[index];
+        }
+
+        @Override
+        void write(int index, Object value) {
+            array[index] = (Byte) JavaConverter.toExactNumber(byte.class, number(value));
+        }
+
+    }
+
+    static class Reflective extends ArrayView {
+
+        final Object array;
+        final Class<?> type;
+
+        Reflective(Object array) {
+            this.array = array;
+            type = array.getClass().getComponentType();
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        int length() {
+            return Array.getLength(array);
+        }
+
+        @Override
+        Object read(int index) {
+            return Array.get(array, index);
+        }
+
+        @Override
+        void write(int index, Object value) {
+            if (type == boolean.class) {
+                Array.set(array, index, Terms.isTruthy(value));
+            } else if (type == char.class) {
+                Array.set(array, index, character(value));
+            } else {
+                Array.set(array, index, JavaConverter.toExactNumber(type, number(value)));
+            }
+        }
+
+    }
+
+}
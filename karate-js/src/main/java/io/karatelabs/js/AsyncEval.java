@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+// the future returned by Engine.evalAsync() and for Parallel tasks, cancelling it stops the script at the next statement
+class AsyncEval extends CompletableFuture<Object> {
+
+    // a rejected task (e.g. the executor was shut down) completes the future instead of throwing
+    static AsyncEval submit(Executor executor, Supplier<Object> task) {
+        AsyncEval future = new AsyncEval();
+        try {
+            executor.execute(() -> future.run(task));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static final ThreadLocal<AsyncEval> CURRENT = new ThreadLocal<>();
+
+    // cancelled evaluations that are still running, so that evalStatement() only needs the thread-local when > 0
+    private static volatile int cancelledRunning;
+
+    static boolean isCancelPending() {
+        return cancelledRunning != 0;
+    }
+
+    static void checkCancelled() {
+        AsyncEval current = CURRENT.get();
+        if (current != null && current.isCancelled()) {
+            throw new CancellationException("evaluation cancelled");
+        }
+    }
+
+    private Thread thread;
+    private boolean finished;
+    private boolean counted;
+
+    void run(Supplier<Object> task) {
+        synchronized (this) {
+            if (isDone()) { // cancelled before it got a thread
+                return;
+            }
+            thread = Thread.currentThread();
+        }
+        CURRENT.set(this);
+        try {
+            complete(task.get());
+        } catch (Throwable e) {
+            completeExceptionally(e);
+        } finally {
+            CURRENT.remove();
+            synchronized (this) {
+                finished = true;
+                thread = null;
+                if (counted) {
+                    adjust(-1);
+                    Thread.interrupted(); // pooled threads should not carry it over to the next task
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean result = super.cancel(mayInterruptIfRunning);
+        if (result) {
+            synchronized (this) {
+                if (thread != null && !finished) {
+                    counted = true;
+                    adjust(1);
+                    if (mayInterruptIfRunning) { // for scripts blocked in a java call
+                        thread.interrupt();
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static synchronized void adjust(int delta) {
+        cancelledRunning += delta;
+    }
+
+}
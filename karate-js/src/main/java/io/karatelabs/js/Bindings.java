@@ -0,0 +1,235 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.*;
+
+// compact map for scope bindings, most function and loop scopes hold only a few names
+// so they are kept in small arrays (allocated on first put) and moved to a HashMap only when that overflows
+final class Bindings extends AbstractMap<String, Object> {
+
+    static final int MAX_COMPACT = 8;
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    private Map<String, Object> map;
+
+    // set when the storage is also referenced by a copy (see share()), whichever is written to first copies it
+    private boolean shared;
+
+    // constant time copy for snapshots, the storage is only copied if (and when) either side is written to
+    Bindings share() {
+        Bindings copy = new Bindings();
+        copy.keys = keys;
+        copy.values = values;
+        copy.size = size;
+        copy.map = map;
+        copy.shared = true;
+        shared = true;
+        return copy;
+    }
+
+    boolean isShared() {
+        return shared;
+    }
+
+    // strings being built up in place are flattened, the other side may still hold (and read) the builder
+    private void own() {
+        if (!shared) {
+            return;
+        }
+        shared = false;
+        if (map != null) {
+            Map<String, Object> copy = new HashMap<>(map.size() * 2);
+            map.forEach((k, v) -> copy.put(k, ConcatString.flatten(v)));
+            map = copy;
+        } else if (keys != null) {
+            keys = keys.clone();
+            Object[] copy = new Object[values.length];
+            for (int i = 0; i < size; i++) {
+                copy[i] = ConcatString.flatten(values[i]);
+            }
+            values = copy;
+        }
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; i++) {
+            String k = keys[i];
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return map == null ? size : map.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map == null ? indexOf(key) != -1 : map.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (map != null) {
+            return map.get(key);
+        }
+        int index = indexOf(key);
+        return index == -1 ? null : values[index];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        own();
+        if (map != null) {
+            return map.put(key, value);
+        }
+        int index = indexOf(key);
+        if (index != -1) {
+            Object previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (keys == null) {
+            keys = new String[MAX_COMPACT];
+            values = new Object[MAX_COMPACT];
+        } else if (size == MAX_COMPACT) {
+            map = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                map.put(keys[i], values[i]);
+            }
+            keys = null;
+            values = null;
+            size = 0;
+            return map.put(key, value);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        own();
+        if (map != null) {
+            return map.remove(key);
+        }
+        int index = indexOf(key);
+        if (index == -1) {
+            return null;
+        }
+        Object previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    private void removeAt(int index) {
+        size--;
+        System.arraycopy(keys, index + 1, keys, index, size - index);
+        System.arraycopy(values, index + 1, values, index, size - index);
+        keys[size] = null;
+        values[size] = null;
+    }
+
+    @Override
+    public void clear() {
+        if (shared) {
+            shared = false;
+            map = null;
+            keys = null;
+            values = null;
+        } else if (map != null) {
+            map = null;
+        } else if (keys != null) {
+            Arrays.fill(keys, 0, size, null);
+            Arrays.fill(values, 0, size, null);
+        }
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (map != null) {
+            return shared ? Collections.unmodifiableMap(map).entrySet() : map.entrySet();
+        }
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        int next;
+        int current = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+            final int index = current;
+            return new SimpleEntry<String, Object>(keys[index], values[index]) {
+                @Override
+                public Object setValue(Object value) {
+                    own();
+                    values[index] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (current == -1) {
+                throw new IllegalStateException();
+            }
+            own();
+            removeAt(current);
+            next = current;
+            current = -1;
+        }
+
+    }
+
+}
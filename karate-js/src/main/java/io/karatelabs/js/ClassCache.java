@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// class lookup by name that also remembers misses, so that checking whether a dotted expression
+// that evaluated to undefined is a java class name does not hit the classloader (and throw) every time
+class ClassCache {
+
+    static final int MAX_SIZE = 4096;
+
+    // one cache per classloader, keyed on the (java bridge) class whose loader is used
+    private static final ClassValue<ClassCache> CACHE = new ClassValue<ClassCache>() {
+        @Override
+        protected ClassCache computeValue(Class<?> type) {
+            return new ClassCache(type.getClassLoader());
+        }
+    };
+
+    static ClassCache of(Class<?> owner) {
+        return CACHE.get(owner);
+    }
+
+    private static final Object NONE = new Object();
+
+    private final ClassLoader classLoader;
+    private final Map<String, Object> classes = new ConcurrentHashMap<>();
+
+    private ClassCache(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    Class<?> forName(String className) {
+        Object result = classes.get(className);
+        if (result == null) {
+            try {
+                result = Class.forName(className, true, classLoader);
+            } catch (ClassNotFoundException e) {
+                result = NONE;
+            }
+            if (classes.size() >= MAX_SIZE) { // crude, but keeps a stream of misses from growing the cache
+                classes.clear();
+            }
+            classes.put(className, result);
+        }
+        return result == NONE ? null : (Class<?>) result;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+// stands in for a string that is being built up by repeated + or += so that each step
+// does not copy everything so far, never handed out: callers get the (cached) java string
+final class ConcatString implements CharSequence {
+
+    private final StringBuilder sb;
+    private String string;
+
+    ConcatString(Object first) {
+        sb = new StringBuilder();
+        sb.append(first);
+    }
+
+    ConcatString append(Object value) {
+        sb.append(value);
+        string = null;
+        return this;
+    }
+
+    static boolean isConcat(Object lhs, Object rhs) {
+        return !(lhs instanceof Number) || !(rhs instanceof Number);
+    }
+
+    static Object flatten(Object value) {
+        return value instanceof ConcatString ? value.toString() : value;
+    }
+
+    @Override
+    public int length() {
+        return sb.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return sb.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return sb.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (string == null) {
+            string = sb.toString();
+        }
+        return string;
+    }
+
+}
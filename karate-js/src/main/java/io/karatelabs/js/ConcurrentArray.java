@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+// js array for data that stays mutable but is read from many threads, see ConcurrentObject
+// reads of the backing array are optimistic and never block, writes take the write lock
+public class ConcurrentArray extends AbstractList<Object> implements RandomAccess {
+
+    private final StampedLock lock = new StampedLock();
+    private Object[] elements;
+    private int size;
+
+    public ConcurrentArray() {
+        elements = new Object[8];
+    }
+
+    public ConcurrentArray(Collection<?> source) {
+        elements = source.toArray();
+        size = elements.length;
+        if (elements.length == 0) {
+            elements = new Object[8];
+        }
+    }
+
+    @Override
+    public Object get(int index) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Object[] array = elements;
+            int count = size;
+            Object value = index >= 0 && index < count && index < array.length ? array[index] : null;
+            if (lock.validate(stamp)) {
+                if (index < 0 || index >= count) {
+                    throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+                }
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+            }
+            return elements[index];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int count = size;
+        if (stamp != 0 && lock.validate(stamp)) {
+            return count;
+        }
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Object set(int index, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            Object previous = elements[index];
+            elements[index] = value;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean add(Object value) {
+        long stamp = lock.writeLock();
+        try {
+            insert(size, value);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void add(int index, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            checkPosition(index);
+            insert(index, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object remove(int index) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index);
+            return delete(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // runs a read-modify-write (e.g. the pop or splice built-ins) under the write lock
+    // the list handed to the function must not escape it
+    <T> T update(Function<List<Object>, T> function) {
+        long stamp = lock.writeLock();
+        try {
+            return function.apply(unlocked);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private final List<Object> unlocked = new Unlocked();
+
+    private class Unlocked extends AbstractList<Object> implements RandomAccess {
+
+        @Override
+        public Object get(int index) {
+            checkIndex(index);
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Object set(int index, Object value) {
+            checkIndex(index);
+            Object previous = elements[index];
+            elements[index] = value;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, Object value) {
+            checkPosition(index);
+            insert(index, value);
+        }
+
+        @Override
+        public Object remove(int index) {
+            checkIndex(index);
+            return delete(index);
+        }
+
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    private void checkPosition(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    // callers hold the write lock
+    private void insert(int index, Object value) {
+        // an optimistic reader that sees a half-moved array fails validation and retries
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    private Object delete(int index) {
+        Object previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            elements = new Object[8];
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+}
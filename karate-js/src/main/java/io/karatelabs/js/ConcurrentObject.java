@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// js object (insertion ordered map) for data that stays mutable but is read from many threads, e.g. a shared
+// fixture registry: values live in a ConcurrentHashMap so reads never lock, writes are serialized so that the
+// key order stays in step, iteration works on a snapshot so it never fails on a concurrent write
+// single operations are atomic, read-modify-write from a script (o.count++) is not
+public class ConcurrentObject extends AbstractMap<String, Object> {
+
+    private static final Object NULL = new Object(); // ConcurrentHashMap does not take null values
+
+    private final ConcurrentHashMap<String, Object> map = new ConcurrentHashMap<>();
+    private final LinkedHashSet<String> keys = new LinkedHashSet<>(); // guarded by itself
+
+    public ConcurrentObject() {
+
+    }
+
+    public ConcurrentObject(Map<String, Object> source) {
+        source.forEach(this::put);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = key == null ? null : map.get(key);
+        return value == NULL ? null : value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && map.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        synchronized (keys) {
+            Object previous = map.put(key, value == null ? NULL : value);
+            if (previous == null) {
+                keys.add(key);
+            }
+            return previous == NULL ? null : previous;
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (keys) {
+            Object previous = map.remove(key);
+            if (previous != null) {
+                keys.remove(key);
+            }
+            return previous == NULL ? null : previous;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (keys) {
+            map.clear();
+            keys.clear();
+        }
+    }
+
+    private List<Entry<String, Object>> snapshot() {
+        synchronized (keys) {
+            List<Entry<String, Object>> entries = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                Object value = map.get(key);
+                entries.add(new SimpleImmutableEntry<>(key, value == NULL ? null : value));
+            }
+            return entries;
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, Object>> iterator = snapshot().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    Entry<String, Object> current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        current = iterator.next();
+                        return current;
+                    }
+
+                    @Override
+                    public void remove() {
+                        ConcurrentObject.this.remove(current.getKey());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ConcurrentObject.this.size();
+            }
+        };
+    }
+
+}
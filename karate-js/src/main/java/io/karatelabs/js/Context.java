@@ -28,6 +28,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -38,7 +41,7 @@ public class Context {
     public static final Context EMPTY = new Context(null, Collections.emptyMap(), null);
 
     private final Context parent;
-    private final Context caller;
+    private Context caller;
     private final Map<String, Object> bindings;
 
     BiConsumer<Node, Exception> onError;
@@ -53,6 +56,10 @@ public class Context {
         this.caller = caller;
     }
 
+    // built-ins created on first use, kept apart from the bindings so that lookups from any thread
+    // (e.g. callbacks of the parallel array functions) never write to a shared bindings map
+    private volatile Map<String, Object> globals = Collections.emptyMap();
+
     @SuppressWarnings("unchecked")
     private Object getGlobal(String key) {
         switch (key) {
@@ -117,12 +124,20 @@ public class Context {
                 return new JsString();
             case "TypeError":
                 return new JsError("TypeError");
+            case "Parallel":
+                return Parallel.getDefault();
+            case "ConcurrentObject":
+                return (Invokable) args -> args.length > 0 && args[0] instanceof Map
+                        ? new ConcurrentObject((Map<String, Object>) args[0]) : new ConcurrentObject();
+            case "ConcurrentArray":
+                return (Invokable) args -> args.length > 0 && args[0] instanceof List
+                        ? new ConcurrentArray((List<Object>) args[0]) : new ConcurrentArray();
         }
         return null;
     }
 
     public void setOnConsole(Consumer<String> onConsole) {
-        parent.bindings.put("console", createConsole(onConsole));
+        setParent("console", createConsole(onConsole));
     }
 
     public void setOnError(BiConsumer<Node, Exception> onError) {
@@ -145,45 +160,294 @@ public class Context {
         return statementCount;
     }
 
+    // live, writes go straight to this context, strings built up with += are read as plain strings
     public Map<String, Object> getBindings() {
-        return bindings;
+        return new AbstractMap<String, Object>() {
+            @Override
+            public int size() {
+                return bindings.size();
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return bindings.containsKey(key);
+            }
+
+            @Override
+            public Object get(Object key) {
+                return ConcatString.flatten(bindings.get(key));
+            }
+
+            @Override
+            public Object put(String key, Object value) {
+                return ConcatString.flatten(bindings.put(key, value));
+            }
+
+            @Override
+            public Object remove(Object key) {
+                return ConcatString.flatten(bindings.remove(key));
+            }
+
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                return new AbstractSet<Entry<String, Object>>() {
+                    @Override
+                    public Iterator<Entry<String, Object>> iterator() {
+                        Iterator<Entry<String, Object>> iterator = bindings.entrySet().iterator();
+                        return new Iterator<Entry<String, Object>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return iterator.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, Object> next() {
+                                Entry<String, Object> entry = iterator.next();
+                                return new SimpleEntry<String, Object>(entry.getKey(), ConcatString.flatten(entry.getValue())) {
+                                    @Override
+                                    public Object setValue(Object value) {
+                                        entry.setValue(value);
+                                        return super.setValue(value);
+                                    }
+                                };
+                            }
+
+                            @Override
+                            public void remove() {
+                                iterator.remove();
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return bindings.size();
+                    }
+                };
+            }
+        };
+    }
+
+    // a read-only copy, for an engine forked from a snapshot it includes the variables of the snapshot
+    public Map<String, Object> snapshotBindings() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Context> levels = new ArrayList<>();
+        for (Context level = parent; level != null && level.frozen && level.parent != null; level = level.parent) {
+            levels.add(level);
+        }
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            levels.get(i).bindings.forEach((k, v) -> result.put(k, adopt(ConcatString.flatten(v))));
+        }
+        bindings.forEach((k, v) -> result.put(k, ConcatString.flatten(v)));
+        return Collections.unmodifiableMap(result);
     }
 
     void setParent(String key, Object value) {
-        parent.bindings.put(key, value);
+        if (parent.frozen) { // shadow instead of writing into a snapshot
+            bindings.put(key, value);
+        } else {
+            parent.bindings.put(key, value);
+        }
     }
 
     public static Context root() {
-        Context root = new Context(null, new HashMap<>(), null);
+        Context root = new Context(null, new Bindings(), null);
         return new Context(root);
     }
 
     Context(Context parent) {
-        this(parent, new HashMap<>(), null);
+        this(parent, new Bindings(), null);
     }
 
     Context merge(Context caller) {
-        return new Context(this, new HashMap<>(), caller);
+        return new Context(this, new Bindings(), caller);
+    }
+
+    // a frozen context (and its parents) belongs to a snapshot that any number of engines fork from, it is never
+    // written to: it is a copy-on-write copy of the live context(s) it was taken from, which carry on unchanged
+    private boolean frozen;
+    private Context[] origins; // the live contexts a frozen one was copied from
+    private Context base; // the frozen parent a frozen one was built on (before any merging of levels)
+    private Context frozenCopy; // the last snapshot of a live context, re-used while nothing was written to it
+    private Map<NodeFunction, NodeFunction> adopted; // for the top-level context of a fork, see adopt()
+
+    // the bindings of each live level are shared, not copied, until either side writes, except that js objects
+    // and arrays (which would be shared by reference with every fork and thread) are replaced by deep frozen copies
+    Context freeze() {
+        if (frozen) {
+            return this;
+        }
+        if (parent != null && parent.frozen && bindings.isEmpty()) { // a fork that was never written to
+            return parent;
+        }
+        Context frozenParent = parent == null ? null : parent.freeze();
+        if (frozenCopy != null && frozenCopy.base == frozenParent && isShared(bindings)) {
+            return frozenCopy;
+        }
+        Map<String, Object> copy;
+        if (bindings instanceof Bindings && !holdsMutable(bindings)) {
+            copy = ((Bindings) bindings).share();
+        } else {
+            Map<String, Object> frozenBindings = new Bindings();
+            bindings.forEach((k, v) -> frozenBindings.put(k, freezeValue(ConcatString.flatten(v))));
+            copy = frozenBindings;
+        }
+        Context result = frozenCopy(frozenParent, copy, new Context[]{this});
+        int depth = 0;
+        Context root = result;
+        while (root.parent != null) {
+            root = root.parent;
+            depth++;
+        }
+        if (depth > MAX_FROZEN_DEPTH) {
+            // copy, assign, copy ... adds a level each time, so once in a while the levels are merged into one
+            List<Context> levels = new ArrayList<>(depth);
+            for (Context level = result; level != root; level = level.parent) {
+                levels.add(level);
+            }
+            Map<String, Object> merged = new Bindings();
+            List<Context> mergedOrigins = new ArrayList<>();
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                Context level = levels.get(i);
+                level.bindings.forEach((k, v) -> merged.put(k, ConcatString.flatten(v)));
+                Collections.addAll(mergedOrigins, level.origins);
+            }
+            result = frozenCopy(root, merged, mergedOrigins.toArray(new Context[0]));
+        }
+        result.base = frozenParent;
+        frozenCopy = result;
+        return result;
+    }
+
+    private Context frozenCopy(Context frozenParent, Map<String, Object> copy, Context[] origins) {
+        Context result = new Context(frozenParent, copy, null);
+        result.frozen = true;
+        result.origins = origins;
+        result.onError = onError;
+        result.onAssign = onAssign;
+        result.ignoreErrors = ignoreErrors;
+        return result;
+    }
+
+    // maps and lists (what js objects and arrays are) unless they are thread-safe and so meant to be shared
+    private static boolean isMutable(Object value) {
+        if (JsObject.isFrozen(value)) {
+            return false;
+        }
+        return !(value instanceof ConcurrentObject || value instanceof ConcurrentArray
+                || value instanceof ConcurrentMap || value instanceof CopyOnWriteArrayList);
+    }
+
+    private static boolean holdsMutable(Map<String, Object> bindings) {
+        for (Object value : bindings.values()) {
+            if (isMutable(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object freezeValue(Object value) {
+        return isMutable(value) ? JsObject.freeze(value, true) : value;
+    }
+
+    private static boolean isShared(Map<String, Object> bindings) {
+        return bindings instanceof Bindings && ((Bindings) bindings).isShared();
+    }
+
+    static final int MAX_FROZEN_DEPTH = 32;
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    // top-level context for an engine that shares this (frozen) one
+    Context fork() {
+        Context child = new Context(this);
+        child.adopted = new ConcurrentHashMap<>();
+        child.resetFork();
+        return child;
+    }
+
+    // back to a fresh fork of the (frozen) parent, in place so that whoever holds on to this context keeps working
+    void resetFork() {
+        reset(null);
+        onError = parent.onError;
+        onAssign = parent.onAssign;
+        ignoreErrors = parent.ignoreErrors;
+        adopted.clear();
+        frozenCopy = null;
+        globals = Collections.emptyMap();
+    }
+
+    // a function from the snapshot still closes over the live context it was declared in, so the fork reading it
+    // gets (always the same) copy that closes over the fork instead, and a call without a caller (from java)
+    // reads and assigns the variables of the fork, functions held in objects are shared as-is
+    private Object adopt(Object value) {
+        if (adopted == null || !(value instanceof NodeFunction)) {
+            return value;
+        }
+        NodeFunction function = (NodeFunction) value;
+        for (Context level = parent; level != null && level.frozen; level = level.parent) {
+            for (Context origin : level.origins) {
+                if (origin == function.originalContext) {
+                    return adopted.computeIfAbsent(function, f -> f.rebind(this));
+                }
+            }
+        }
+        return value;
+    }
+
+    // a function frame is re-used for the next call only if nothing (a closure) holds on to it
+    private boolean captured;
+
+    void markCaptured() {
+        Context context = this;
+        while (context != null && !context.captured) {
+            context.captured = true;
+            if (context.caller != null) {
+                context.caller.markCaptured();
+            }
+            context = context.parent;
+        }
+    }
+
+    boolean isCaptured() {
+        return captured;
     }
 
-    Context copy() {
-        Map<String, Object> map = new HashMap<>(bindings);
-        return new Context(null, map, null);
+    void reset(Context caller) {
+        this.caller = caller;
+        bindings.clear();
+        construct = false;
+        currentNode = null;
+        stopped = false;
+        returnValue = null;
+        errorThrown = null;
+        errorCount = 0;
+        statementCount = 0;
     }
 
     public Object get(String name) {
         if (bindings.containsKey(name)) {
-            return bindings.get(name);
+            return ConcatString.flatten(bindings.get(name));
         }
         if (caller != null && caller.hasKey(name)) {
             return caller.get(name);
         }
         if (parent != null && parent.hasKey(name)) {
-            return parent.get(name);
+            return adopt(parent.get(name));
+        }
+        Object global = globals.get(name);
+        if (global == null) {
+            global = getGlobal(name);
+            if (global != null) { // copy on write, racing threads may drop an entry which is harmless
+                Map<String, Object> copy = new HashMap<>(globals);
+                copy.put(name, global);
+                globals = copy;
+            }
         }
-        Object global = getGlobal(name);
         if (global != null) {
-            bindings.put(name, global);
             return global;
         }
         return Undefined.INSTANCE;
@@ -216,6 +480,9 @@ public class Context {
             case "RegExp":
             case "String":
             case "TypeError":
+            case "ConcurrentObject":
+            case "ConcurrentArray":
+            case "Parallel":
                 return true;
         }
         return false;
@@ -234,7 +501,13 @@ public class Context {
         } else if (caller != null && caller.hasKey(name)) {
             caller.update(name, value);
         } else if (parent != null && parent.hasKey(name)) {
-            parent.update(name, value);
+            if (parent.frozen) {
+                // copy on write into the top-level context of the fork, the only live context over a frozen one
+                // (functions from the snapshot are re-bound to it, see adopt()) so the value outlives any frame
+                bindings.put(name, value);
+            } else {
+                parent.update(name, value);
+            }
         } else {
             bindings.put(name, value);
             if (onAssign != null) {
@@ -243,6 +516,30 @@ public class Context {
         }
     }
 
+    // += on a variable holding a string, appends in place instead of copying, returns null if not applicable
+    ConcatString append(String name, Object value) {
+        if (frozen || isShared(bindings)) { // the builder may be read through a snapshot
+            return null;
+        }
+        if (bindings.containsKey(name)) {
+            Object current = bindings.get(name);
+            if (current instanceof ConcatString) {
+                return ((ConcatString) current).append(value);
+            }
+            if (current instanceof String) {
+                ConcatString result = new ConcatString(current).append(value);
+                bindings.put(name, result);
+                return result;
+            }
+            return null;
+        } else if (caller != null && caller.hasKey(name)) {
+            return caller.append(name, value);
+        } else if (parent != null && parent.hasKey(name)) {
+            return parent.append(name, value);
+        }
+        return null;
+    }
+
     public void remove(String name) {
         bindings.remove(name);
     }
@@ -256,7 +553,7 @@ public class Context {
                         if (arg instanceof ObjectLike) {
                             Object toString = ((ObjectLike) arg).get("toString");
                             if (toString instanceof Invokable) {
-                                sb.append(((Invokable) toString).invoke(arg));
+                                sb.append(((Invokable) toString).invoke1(arg));
                             } else {
                                 sb.append(Terms.TO_STRING(arg));
                             }
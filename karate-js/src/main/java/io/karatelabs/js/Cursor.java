@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// allocation free alternative to iterating over KeyValue instances
+// for arrays the (string) key is created only when asked for
+public abstract class Cursor {
+
+    int index = -1;
+
+    public abstract boolean next();
+
+    public abstract String key();
+
+    public abstract Object value();
+
+    public int index() {
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Cursor of(Object object) {
+        if (object instanceof List) {
+            return new ListCursor((List<Object>) object);
+        }
+        if (object instanceof JsArray) {
+            return new ListCursor(((JsArray) object).list);
+        }
+        if (object instanceof Map) {
+            return new MapCursor((Map<String, Object>) object);
+        }
+        if (object instanceof ObjectLike) {
+            Map<String, Object> map = ((ObjectLike) object).toMap();
+            if (map != null) {
+                return new MapCursor(map);
+            }
+        }
+        return new MapCursor(Collections.emptyMap());
+    }
+
+    static class ListCursor extends Cursor {
+
+        final List<Object> list;
+        final int size;
+
+        ListCursor(List<Object> list) {
+            this.list = list;
+            size = list.size();
+        }
+
+        @Override
+        public boolean next() {
+            return ++index < size;
+        }
+
+        @Override
+        public String key() {
+            return String.valueOf(index);
+        }
+
+        @Override
+        public Object value() {
+            return list.get(index);
+        }
+
+    }
+
+    static class MapCursor extends Cursor {
+
+        final Iterator<Map.Entry<String, Object>> entries;
+        Map.Entry<String, Object> entry;
+
+        MapCursor(Map<String, Object> map) {
+            entries = map.entrySet().iterator();
+        }
+
+        @Override
+        public boolean next() {
+            if (entries.hasNext()) {
+                entry = entries.next();
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String key() {
+            return entry.getKey();
+        }
+
+        @Override
+        public Object value() {
+            return entry.getValue();
+        }
+
+    }
+
+}
@@ -25,6 +25,9 @@ package io.karatelabs.js;
 
 import java.io.File;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class Engine {
 
@@ -41,6 +44,7 @@ public class Engine {
     public static boolean DEBUG = false;
 
     public final Context context;
+    private Snapshot origin; // set for engines forked from a snapshot, see reset()
     public Source source;
 
     private Engine(Context context) {
@@ -63,10 +67,36 @@ public class Engine {
         return evalInternal(Source.of(text));
     }
 
+    public <T> T eval(String text, Class<T> type) {
+        return ValueMapper.toJava(evalInternal(Source.of(text)), type);
+    }
+
+    public <T> T eval(Source source, Class<T> type) {
+        return ValueMapper.toJava(evalInternal(source), type);
+    }
+
     public Object evalWith(String text, Map<String, Object> vars) {
         return evalInternal(Source.of(text), vars);
     }
 
+    private Executor executor;
+
+    // for evalAsync(), by default virtual threads on java 21+ else a cached pool shared by all engines
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Object> evalAsync(String text) {
+        return evalAsync(Source.of(text), null);
+    }
+
+    // the engine must not be used for anything else until the future completes
+    // cancel() stops the script at the next statement, with cancel(true) also interrupting a blocking java call
+    // if the executor rejects the script (e.g. it was shut down) the future completes with that error
+    public CompletableFuture<Object> evalAsync(Source source, Map<String, Object> vars) {
+        return AsyncEval.submit(executor == null ? Parallel.defaultExecutor() : executor, () -> evalInternal(source, vars));
+    }
+
     public static boolean isUndefined(Object o) {
         return o == Undefined.INSTANCE || Undefined.NAN.equals(o);
     }
@@ -85,13 +115,15 @@ public class Engine {
                 evalContext = context;
             } else {
                 evalContext = new Context(context);
-                evalContext.getBindings().putAll(localVars);
+                localVars.forEach(evalContext::declare);
             }
             Object result = Interpreter.eval(node, evalContext);
             if (isUndefined(result) && convertUndefined) {
                 return null;
             }
             return result;
+        } catch (CancellationException e) {
+            throw e;
         } catch (Throwable e) {
             String message = e.getMessage();
             if (message == null) {
@@ -118,8 +150,44 @@ public class Engine {
         return value;
     }
 
+    public JsFunction getFunction(String name) {
+        Object value = context.get(name);
+        if (value instanceof JsFunction) {
+            return (JsFunction) value;
+        }
+        throw new RuntimeException("not a function: " + name);
+    }
+
+    public <T> T get(String name, Class<T> type) {
+        return ValueMapper.toJava(context.get(name), type);
+    }
+
+    // the current global state, this engine carries on as before, nothing is copied until either side writes
+    public Snapshot snapshot() {
+        return new Snapshot(context.freeze());
+    }
+
+    // constant time, independent of how much the snapshot holds, safe to call from many threads
+    public static Engine fromSnapshot(Snapshot snapshot) {
+        Engine engine = new Engine(snapshot.context.fork());
+        engine.origin = snapshot;
+        return engine;
+    }
+
+    // back to the state of the snapshot this engine was forked from, dropping everything declared or
+    // assigned since, as well as error and statement counts and any stopped / return state
+    public void reset() {
+        if (origin == null) {
+            throw new RuntimeException("engine was not created from a snapshot");
+        }
+        context.resetFork();
+        source = null;
+    }
+
+    // both engines continue as forks of the state so far, sharing it until either assigns, only js objects and
+    // arrays held in variables are copied (deep frozen) for the copy, see Snapshot
     public Engine copy() {
-        return new Engine(context.copy());
+        return fromSnapshot(snapshot());
     }
 
     public static Object exec(File file) {
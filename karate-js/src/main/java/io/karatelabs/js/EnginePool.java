@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// a bounded pool of engines forked from one snapshot (e.g. host bindings and a library set up once)
+// an engine is reset to the snapshot when returned, which is constant time
+// only java.util.concurrent primitives are used, no synchronized blocks, so virtual threads do not pin
+public class EnginePool {
+
+    private final Snapshot snapshot;
+    private final int size;
+    private final BlockingQueue<Engine> idle;
+    private final Set<Engine> borrowed = Collections.newSetFromMap(new ConcurrentHashMap<>()); // engine has identity equals
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowNanos = new LongAdder();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+
+    public EnginePool(Snapshot snapshot, int size) {
+        if (size < 1) {
+            throw new RuntimeException("pool size must be at least 1: " + size);
+        }
+        this.snapshot = snapshot;
+        this.size = size;
+        idle = new ArrayBlockingQueue<>(size);
+    }
+
+    // takes a snapshot of the template engine (see Engine.snapshot()), which can carry on being used on its own
+    public EnginePool(Engine template, int size) {
+        this(template.snapshot(), size);
+    }
+
+    public Engine borrow() {
+        try {
+            return borrow(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    // null if no engine became available in time
+    public Engine borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        Engine engine = idle.poll();
+        if (engine == null) {
+            engine = create();
+            if (engine == null) {
+                engine = idle.poll(timeout, unit);
+                if (engine == null) {
+                    return null;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        borrowCount.increment();
+        borrowNanos.add(elapsed);
+        maxBorrowNanos.accumulateAndGet(elapsed, Math::max);
+        borrowed.add(engine);
+        inUse.incrementAndGet();
+        return engine;
+    }
+
+    private Engine create() {
+        while (true) {
+            int count = created.get();
+            if (count >= size) {
+                return null;
+            }
+            if (created.compareAndSet(count, count + 1)) {
+                return Engine.fromSnapshot(snapshot);
+            }
+        }
+    }
+
+    public void release(Engine engine) {
+        if (!borrowed.remove(engine)) { // checked before the reset, which would wipe a foreign engine
+            throw new RuntimeException("engine was not borrowed from this pool, or was already released");
+        }
+        engine.reset();
+        idle.offer(engine);
+        inUse.decrementAndGet();
+    }
+
+    public <T> T execute(Function<Engine, T> function) {
+        Engine engine = borrow();
+        try {
+            return function.apply(engine);
+        } finally {
+            release(engine);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCreated() {
+        return created.get();
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long getAverageBorrowNanos() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : borrowNanos.sum() / count;
+    }
+
+    public long getMaxBorrowNanos() {
+        return maxBorrowNanos.get();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// immutable list from Object.freeze() over a single array, safe to read from any number of threads
+final class FrozenList extends AbstractList<Object> implements RandomAccess {
+
+    private final Object[] values;
+
+    FrozenList(List<Object> list, boolean deep) {
+        values = list.toArray();
+        if (deep) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = JsObject.freeze(values[i], true);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Object get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        throw FrozenMap.frozen();
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        throw FrozenMap.frozen();
+    }
+
+    @Override
+    public Object remove(int index) {
+        throw FrozenMap.frozen();
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.*;
+
+// immutable map from Object.freeze(), keys and values in flat arrays (insertion order) plus an open-addressing
+// index for larger maps, fields are final and never written after construction so any number of threads can read
+final class FrozenMap extends AbstractMap<String, Object> {
+
+    private static final int LINEAR_MAX = 8;
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int[] index; // slot -> entry position + 1, 0 for empty, null for small maps
+
+    FrozenMap(Map<String, Object> map, boolean deep) {
+        int size = map.size();
+        keys = new String[size];
+        values = new Object[size];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = deep ? JsObject.freeze(entry.getValue(), true) : entry.getValue();
+            i++;
+        }
+        if (size <= LINEAR_MAX) {
+            index = null;
+        } else {
+            int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+            index = new int[capacity];
+            int mask = capacity - 1;
+            for (i = 0; i < size; i++) {
+                int slot = keys[i].hashCode() & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = i + 1;
+            }
+        }
+    }
+
+    private int find(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        if (index == null) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        int slot = key.hashCode() & mask;
+        while (true) {
+            int pos = index[slot];
+            if (pos == 0) {
+                return -1;
+            }
+            if (keys[pos - 1].equals(key)) {
+                return pos - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    static RuntimeException frozen() {
+        return new RuntimeException("cannot modify a frozen object");
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int pos = find(key);
+        return pos == -1 ? null : values[pos];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw frozen();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw frozen();
+    }
+
+    @Override
+    public void clear() {
+        throw frozen();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    int pos;
+
+                    @Override
+                    public boolean hasNext() {
+                        return pos < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (pos >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[pos], values[pos]);
+                        pos++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+}
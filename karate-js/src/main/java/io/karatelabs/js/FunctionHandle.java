@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+// a js function prepared for repeated calls from java, the "this" value is fixed when the handle is created
+// and nothing is written to the function object per call, so a handle can be shared across threads
+// (as long as the function body itself does not mutate shared state) and re-entered
+public final class FunctionHandle {
+
+    private final JsFunction function;
+    private final Object thisObject;
+
+    FunctionHandle(JsFunction function, Object thisObject) {
+        this.function = function;
+        this.thisObject = thisObject;
+    }
+
+    public FunctionHandle withThis(Object thisObject) {
+        return new FunctionHandle(function, thisObject);
+    }
+
+    public JsFunction getFunction() {
+        return function;
+    }
+
+    public Object call() {
+        return function.call(null, thisObject, null, 0, null, null, null);
+    }
+
+    public Object call(Object arg0) {
+        return function.call(null, thisObject, null, 1, arg0, null, null);
+    }
+
+    public Object call(Object arg0, Object arg1) {
+        return function.call(null, thisObject, null, 2, arg0, arg1, null);
+    }
+
+    public Object call(Object arg0, Object arg1, Object arg2) {
+        return function.call(null, thisObject, null, 3, arg0, arg1, arg2);
+    }
+
+    public Object callArgs(Object... args) {
+        return function.call(null, thisObject, args, args.length, null, null, null);
+    }
+
+}
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class Interpreter {
 
@@ -79,13 +80,20 @@ public class Interpreter {
         }
     }
 
-    private static Object evalAssignExpr(Node node, Context context) {
+    private static Object evalAssignExpr(Node node, Context context, boolean statement) {
         JsProperty prop = new JsProperty(node.children.get(0), context);
         Object value = eval(node.children.get(2), context);
         switch (node.children.get(1).chunk.token) {
             case EQ:
                 break;
             case PLUS_EQ:
+                if (prop.object == null && prop.name != null) {
+                    ConcatString result = context.append(prop.name, value);
+                    if (result != null) {
+                        // the result of a statement is not visible unless it is the last one
+                        return statement ? result : result.toString();
+                    }
+                }
                 value = Terms.add(prop.get(), value);
                 break;
             case MINUS_EQ:
@@ -137,7 +145,13 @@ public class Interpreter {
         Object result = null;
         for (Node child : node.children) {
             if (child.type == Type.EXPR) {
-                result = eval(child, context);
+                Node expr = child.children.get(0);
+                if (expr.type == Type.ASSIGN_EXPR) {
+                    context.currentNode = expr;
+                    result = evalAssignExpr(expr, context, true);
+                } else {
+                    result = eval(child, context);
+                }
             }
         }
         return result;
@@ -168,46 +182,95 @@ public class Interpreter {
     }
 
     @SuppressWarnings("unchecked")
+    private static Object[] evalFnArgs(Node fnArgsNode, Context context) {
+        List<Object> argsList = new ArrayList<>();
+        int argsCount = fnArgsNode.children.size();
+        for (int i = 0; i < argsCount; i++) {
+            Node fnArgNode = fnArgsNode.children.get(i);
+            Node argNode = fnArgNode.children.get(0);
+            if (argNode.isChunk()) { // DOT_DOT_DOT
+                Object arg = eval(fnArgNode.children.get(1), context);
+                if (arg instanceof List) {
+                    argsList.addAll((List<Object>) arg);
+                } else if (arg instanceof JsArray) {
+                    JsArray arrayLike = (JsArray) arg;
+                    argsList.addAll(arrayLike.toList());
+                }
+            } else {
+                Object arg = eval(argNode, context);
+                argsList.add(arg);
+            }
+        }
+        return argsList.toArray();
+    }
+
+    private static boolean hasSpread(Node fnArgsNode) {
+        for (Node fnArgNode : fnArgsNode.children) {
+            if (fnArgNode.children.get(0).isChunk()) { // DOT_DOT_DOT
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Object invoke(Invokable invokable, Object[] args, int argc, Object arg0, Object arg1, Object arg2) {
+        if (args != null) {
+            return invokable.invoke(args);
+        }
+        switch (argc) {
+            case 0:
+                return invokable.invoke0();
+            case 1:
+                return invokable.invoke1(arg0);
+            case 2:
+                return invokable.invoke2(arg0, arg1);
+            default:
+                return invokable.invoke3(arg0, arg1, arg2);
+        }
+    }
+
     private static Object evalFnCall(Node node, Context context) {
         JsProperty prop = new JsProperty(node.children.get(0), context);
         Invokable invokable = prop.getInvokable();
-        List<Object> argsList = new ArrayList<>();
+        // up to 3 args are evaluated into locals, to avoid the varargs array
+        Object[] args = null;
+        int argc = 0;
+        Object arg0 = null;
+        Object arg1 = null;
+        Object arg2 = null;
         if (node.children.size() > 1) { // check for rare case, new syntax without parentheses
             Node fnArgsNode = node.children.get(2);
-            int argsCount = fnArgsNode.children.size();
-            for (int i = 0; i < argsCount; i++) {
-                Node fnArgNode = fnArgsNode.children.get(i);
-                Node argNode = fnArgNode.children.get(0);
-                if (argNode.isChunk()) { // DOT_DOT_DOT
-                    Object arg = eval(fnArgNode.children.get(1), context);
-                    if (arg instanceof List) {
-                        argsList.addAll((List<Object>) arg);
-                    } else if (arg instanceof JsArray) {
-                        JsArray arrayLike = (JsArray) arg;
-                        argsList.addAll(arrayLike.toList());
-                    }
-                } else {
-                    Object arg = eval(argNode, context);
-                    argsList.add(arg);
+            argc = fnArgsNode.children.size();
+            if (argc > 3 || hasSpread(fnArgsNode)) {
+                args = evalFnArgs(fnArgsNode, context);
+                argc = args.length;
+            } else {
+                if (argc > 0) {
+                    arg0 = eval(fnArgsNode.children.get(0).children.get(0), context);
+                }
+                if (argc > 1) {
+                    arg1 = eval(fnArgsNode.children.get(1).children.get(0), context);
+                }
+                if (argc > 2) {
+                    arg2 = eval(fnArgsNode.children.get(2).children.get(0), context);
                 }
             }
         }
-        Object[] args = argsList.toArray();
         Object thisObject;
-        JsFunction jsFunction;
-        if (invokable instanceof JsFunction) {
-            jsFunction = (JsFunction) invokable;
-            jsFunction.invokeContext = context;
-        } else {
-            jsFunction = null;
-        }
-        if (context.construct) { // new keyword
+        boolean construct = context.construct;
+        if (construct) { // new keyword
             context.construct = false;
             thisObject = invokable;
-            if (jsFunction != null) {
-                jsFunction.thisObject = thisObject;
-            }
-            Object result = invokable.invoke(args);
+        } else {
+            thisObject = prop.object == null ? invokable : prop.object;
+        }
+        Object result;
+        if (invokable instanceof JsFunction) { // receiver and calling context are passed in, never set on the function
+            result = ((JsFunction) invokable).call(context, thisObject, args, argc, arg0, arg1, arg2);
+        } else {
+            result = invoke(invokable, args, argc, arg0, arg1, arg2);
+        }
+        if (construct) {
             // hack to ensure any computation result is a java string
             // it breaks some js conventions, e.g. the below is not true in karate-js
             // typeof new String() === 'object'
@@ -215,20 +278,15 @@ public class Interpreter {
                 return result.toString();
             }
             return Terms.isPrimitive(result) ? thisObject : result;
-        } else { // normal function call
-            thisObject = prop.object == null ? invokable : prop.object;
-            if (jsFunction != null) {
-                jsFunction.thisObject = thisObject;
-            }
-            Object result = invokable.invoke(args);
-            if (result instanceof JsString || result instanceof JsDate) {
-                return result.toString();
-            }
-            return result;
         }
+        if (result instanceof JsString || result instanceof JsDate) {
+            return result.toString();
+        }
+        return result;
     }
 
     private static Object evalFnExpr(Node node, Context context) {
+        context.markCaptured();
         if (node.children.get(1).chunk.token == Token.IDENT) {
             NodeFunction nodeFunction = new NodeFunction(false, argNames(node.children.get(3)), node.children.get(5), context);
             context.declare(node.children.get(1).getText(), nodeFunction);
@@ -239,6 +297,7 @@ public class Interpreter {
     }
 
     private static Object evalFnArrowExpr(Node node, Context context) {
+        context.markCaptured();
         if (node.children.get(0).chunk.token == Token.IDENT) {
             String argName = node.children.get(0).getText();
             return new NodeFunction(true, Collections.singletonList(argName), node.children.get(2), context);
@@ -277,18 +336,18 @@ public class Interpreter {
         } else { // for in / of
             boolean in = node.children.get(3).chunk.token == Token.IN;
             Object forObject = eval(node.children.get(4), forContext);
-            Iterable<KeyValue> iterable = JsObject.toIterable(forObject);
+            Cursor cursor = Cursor.of(forObject);
             String varName;
             if (node.children.get(2).type == Type.VAR_STMT) {
                 varName = node.children.get(2).children.get(1).getText();
             } else {
                 varName = node.children.get(2).getText();
             }
-            for (KeyValue kv : iterable) {
+            while (cursor.next()) {
                 if (in) {
-                    forContext.declare(varName, kv.key);
+                    forContext.declare(varName, cursor.key());
                 } else {
-                    forContext.declare(varName, kv.value);
+                    forContext.declare(varName, cursor.value());
                 }
                 forResult = eval(forBody, forContext);
             }
@@ -374,19 +433,19 @@ public class Interpreter {
     }
 
     private static String evalLitTemplate(Node node, Context context) {
-        StringBuilder sb = new StringBuilder();
+        ConcatString result = new ConcatString("");
         for (Node child : node.children) {
             if (child.chunk.token == Token.T_STRING) {
-                sb.append(child.chunk.text);
+                result.append(child.chunk.text);
             } else if (child.type == Type.EXPR) {
                 Object value = eval(child, context);
                 if (value == Undefined.INSTANCE) {
                     throw new RuntimeException(child.getText() + " is not defined");
                 }
-                sb.append(value);
+                result.append(value);
             }
         }
-        return sb.toString();
+        return result.toString();
     }
 
     private static Object evalLogicBitExpr(Node node, Context context) {
@@ -412,6 +471,20 @@ public class Interpreter {
         Object lhs = eval(node.children.get(0), context);
         Object rhs = eval(node.children.get(2), context);
         Token logicOp = node.children.get(1).chunk.token;
+        if (node.feedback != Node.Feedback.GENERIC) {
+            if (lhs instanceof Integer && rhs instanceof Integer) {
+                if (node.feedback != Node.Feedback.DOUBLE) {
+                    node.feedback = Node.Feedback.INT;
+                    return compare(logicOp, (Integer) lhs, (Integer) rhs);
+                }
+            } else if (lhs instanceof Double && rhs instanceof Double) {
+                if (node.feedback != Node.Feedback.INT && isRelational(logicOp)) {
+                    node.feedback = Node.Feedback.DOUBLE;
+                    return compare(logicOp, (Double) lhs, (Double) rhs);
+                }
+            }
+            node.feedback = Node.Feedback.GENERIC;
+        }
         if (Undefined.NAN.equals(lhs) || Undefined.NAN.equals(rhs)) {
             if (Undefined.NAN.equals(lhs) && Undefined.NAN.equals(rhs)) {
                 return logicOp == Token.NOT_EQ || logicOp == Token.NOT_EQ_EQ;
@@ -440,6 +513,55 @@ public class Interpreter {
         }
     }
 
+    private static boolean isRelational(Token logicOp) {
+        switch (logicOp) {
+            case LT:
+            case GT:
+            case LT_EQ:
+            case GT_EQ:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean compare(Token logicOp, int lhs, int rhs) {
+        switch (logicOp) {
+            case EQ_EQ:
+            case EQ_EQ_EQ:
+                return lhs == rhs;
+            case NOT_EQ:
+            case NOT_EQ_EQ:
+                return lhs != rhs;
+            case LT:
+                return lhs < rhs;
+            case GT:
+                return lhs > rhs;
+            case LT_EQ:
+                return lhs <= rhs;
+            case GT_EQ:
+                return lhs >= rhs;
+            default:
+                throw new RuntimeException("unexpected operator: " + logicOp);
+        }
+    }
+
+    // only for relational operators, NaN and -0 handling of the equality operators is left to Terms
+    private static boolean compare(Token logicOp, double lhs, double rhs) {
+        switch (logicOp) {
+            case LT:
+                return lhs < rhs;
+            case GT:
+                return lhs > rhs;
+            case LT_EQ:
+                return lhs <= rhs;
+            case GT_EQ:
+                return lhs >= rhs;
+            default:
+                throw new RuntimeException("unexpected operator: " + logicOp);
+        }
+    }
+
     private static Object evalLogicAndExpr(Node node, Context context) {
         Object andOrLhs = eval(node.children.get(0), context);
         Object andOrRhs = eval(node.children.get(2), context);
@@ -464,14 +586,59 @@ public class Interpreter {
     private static Object evalMathAddExpr(Node node, Context context) {
         switch (node.children.get(1).chunk.token) {
             case PLUS:
-                return Terms.add(eval(node.children.get(0), context), eval(node.children.get(2), context));
+                return ConcatString.flatten(evalPlus(node, context, false));
             case MINUS:
-                return terms(node, context).min();
+                Object lhs = eval(node.children.get(0), context);
+                Object rhs = eval(node.children.get(2), context);
+                if (node.feedback != Node.Feedback.GENERIC) {
+                    if (lhs instanceof Integer && rhs instanceof Integer) {
+                        int a = (Integer) lhs;
+                        int b = (Integer) rhs;
+                        int result = a - b;
+                        if (((a ^ b) & (a ^ result)) >= 0) { // no overflow
+                            node.feedback = Node.Feedback.INT;
+                            return result;
+                        }
+                    }
+                    node.feedback = Node.Feedback.GENERIC;
+                }
+                return terms(lhs, rhs).min();
             default:
                 throw new RuntimeException("unexpected operator: " + node.children.get(1));
         }
     }
 
+    // for a chain like a + b + c + d, the intermediate strings are appended in place
+    private static Object evalPlus(Node node, Context context, boolean nested) {
+        Node lhsNode = node.children.get(0);
+        Object lhs;
+        if (lhsNode.type == Type.MATH_ADD_EXPR && lhsNode.children.get(1).chunk.token == Token.PLUS) {
+            lhs = evalPlus(lhsNode, context, true);
+        } else {
+            lhs = eval(lhsNode, context);
+        }
+        Object rhs = eval(node.children.get(2), context);
+        if (node.feedback != Node.Feedback.GENERIC) {
+            if (lhs instanceof Integer && rhs instanceof Integer) {
+                int a = (Integer) lhs;
+                int b = (Integer) rhs;
+                int result = a + b;
+                if (((a ^ result) & (b ^ result)) >= 0) { // no overflow
+                    node.feedback = Node.Feedback.INT;
+                    return result;
+                }
+            }
+            node.feedback = Node.Feedback.GENERIC;
+        }
+        if (lhs instanceof ConcatString) {
+            return ((ConcatString) lhs).append(rhs);
+        }
+        if (nested && ConcatString.isConcat(lhs, rhs)) {
+            return new ConcatString(lhs).append(rhs);
+        }
+        return Terms.add(lhs, rhs);
+    }
+
     private static Object evalMathMulExpr(Node node, Context context) {
         switch (node.children.get(1).chunk.token) {
             case STAR:
@@ -490,10 +657,10 @@ public class Interpreter {
         Object postValue = postProp.get();
         switch (node.children.get(1).chunk.token) {
             case PLUS_PLUS:
-                postProp.set(Terms.add(postValue, 1));
+                postProp.set(increment(node, postValue, 1));
                 break;
             case MINUS_MINUS:
-                postProp.set(terms(postValue, 1).min());
+                postProp.set(increment(node, postValue, -1));
                 break;
             default:
                 throw new RuntimeException("unexpected operator: " + node.children.get(1));
@@ -501,15 +668,29 @@ public class Interpreter {
         return postValue;
     }
 
+    private static Object increment(Node node, Object value, int delta) {
+        if (node.feedback != Node.Feedback.GENERIC) {
+            if (value instanceof Integer) {
+                int i = (Integer) value;
+                if (delta > 0 ? i != Integer.MAX_VALUE : i != Integer.MIN_VALUE) {
+                    node.feedback = Node.Feedback.INT;
+                    return i + delta;
+                }
+            }
+            node.feedback = Node.Feedback.GENERIC;
+        }
+        return delta > 0 ? Terms.add(value, 1) : terms(value, 1).min();
+    }
+
     private static Object evalMathPreExpr(Node node, Context context) {
         JsProperty preProp = new JsProperty(node.children.get(1), context);
         Object preValue = preProp.get();
         switch (node.children.get(0).chunk.token) {
             case PLUS_PLUS:
-                preProp.set(Terms.add(preValue, 1));
+                preProp.set(increment(node, preValue, 1));
                 return preProp.get();
             case MINUS_MINUS:
-                preProp.set(terms(preValue, 1).min());
+                preProp.set(increment(node, preValue, -1));
                 return preProp.get();
             case MINUS:
                 return terms(preValue, -1).mul();
@@ -534,20 +715,21 @@ public class Interpreter {
         for (Node child : node.children) {
             progResult = eval(child, context);
             if (context.isError()) {
-                Object errorThrown = context.getErrorThrown();
-                String errorMessage = null;
-                if (errorThrown instanceof JsObject) {
-                    JsObject error = (JsObject) errorThrown;
-                    Object message = error.get("message");
-                    if (message instanceof String) {
-                        errorMessage = (String) message;
-                    }
-                }
-                String message = child.toStringError(errorMessage == null ? errorThrown.toString() : errorMessage);
+                String message = child.toStringError(errorMessage(context.getErrorThrown()));
                 throw new RuntimeException(message);
             }
         }
-        return progResult;
+        return ConcatString.flatten(progResult);
+    }
+
+    static String errorMessage(Object errorThrown) {
+        if (errorThrown instanceof JsObject) {
+            Object message = ((JsObject) errorThrown).get("message");
+            if (message instanceof String) {
+                return (String) message;
+            }
+        }
+        return String.valueOf(errorThrown);
     }
 
     private static Object evalReturnStmt(Node node, Context context) {
@@ -560,6 +742,9 @@ public class Interpreter {
 
     private static Object evalStatement(Node node, Context context) {
         context.statementCount++;
+        if (AsyncEval.isCancelPending()) {
+            AsyncEval.checkCancelled();
+        }
         try {
             Object statementResult = eval(node.children.get(0), context);
             if (logger.isTraceEnabled() || Engine.DEBUG) {
@@ -573,6 +758,8 @@ public class Interpreter {
                 }
             }
             return statementResult;
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             if (context.ignoreErrors) {
                 context.errorCount++;
@@ -580,6 +767,9 @@ public class Interpreter {
                     context.onError.accept(node, e);
                 }
                 return null;
+            } else if (e instanceof JsException) { // thrown by a js function called from java, e.g. a callback
+                context.stopAndThrow(((JsException) e).getValue());
+                return null;
             } else {
                 Chunk first = node.getFirstChunk();
                 String message = "js failed:\n==========\n" + first.getLineText() + "\n"
@@ -718,7 +908,7 @@ public class Interpreter {
             case _CHUNK:
                 return evalChunk(node, context);
             case ASSIGN_EXPR:
-                return evalAssignExpr(node, context);
+                return evalAssignExpr(node, context, false);
             case BLOCK:
                 return evalBlock(node, context);
             case BREAK_STMT:
@@ -28,4 +28,22 @@ public interface Invokable {
 
     Object invoke(Object... args);
 
+    // arity specific entry points, implementations can over-ride to avoid the varargs array
+
+    default Object invoke0() {
+        return invoke(JavaBridge.EMPTY);
+    }
+
+    default Object invoke1(Object arg0) {
+        return invoke(arg0);
+    }
+
+    default Object invoke2(Object arg0, Object arg1) {
+        return invoke(arg0, arg1);
+    }
+
+    default Object invoke3(Object arg0, Object arg1, Object arg2) {
+        return invoke(arg0, arg1, arg2);
+    }
+
 }
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.*;
+
+// live, read-only map view over the bean properties of a java object, values are read (and converted)
+// only when asked for, nested java objects are wrapped the same way
+class JavaBeanMap extends AbstractMap<String, Object> {
+
+    private final Object object;
+    private final Map<String, JavaMembers.Accessor> properties;
+
+    JavaBeanMap(Object object) {
+        this.object = object;
+        properties = JavaMembers.of(object.getClass()).getProperties();
+    }
+
+    @Override
+    public int size() {
+        return properties.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        JavaMembers.Accessor accessor = properties.get(key);
+        return accessor == null ? null : toValue(accessor.get(object));
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, JavaMembers.Accessor>> iterator = properties.entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        Entry<String, JavaMembers.Accessor> entry = iterator.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), toValue(entry.getValue().get(object)));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return properties.size();
+            }
+        };
+    }
+
+    // maps, collections and arrays are wrapped as views too, so nothing is copied deep
+    // and an object graph that refers back to itself is only walked as far as it is read
+    @SuppressWarnings("unchecked")
+    static Object toValue(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Map) {
+            return new MapView((Map<Object, Object>) value);
+        }
+        if (value instanceof List) {
+            return new ListView((List<Object>) value);
+        }
+        if (value instanceof Collection) {
+            return new ListView(new ArrayList<>((Collection<Object>) value));
+        }
+        if (value.getClass().isArray()) {
+            return new ListView(ArrayView.of(value));
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof Character || value instanceof Date || JavaMembers.of(value.getClass()).getProperties().isEmpty()) {
+            return value.toString();
+        }
+        return new JavaBeanMap(value);
+    }
+
+    static class ListView extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> list;
+
+        ListView(List<Object> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Object get(int index) {
+            return toValue(list.get(index));
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+    }
+
+    static class MapView extends AbstractMap<String, Object> {
+
+        private static final Object NONE = new Object();
+
+        private final Map<Object, Object> map;
+
+        MapView(Map<Object, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return sourceKey(key) != NONE;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object sourceKey = sourceKey(key);
+            return sourceKey == NONE ? null : toValue(map.get(sourceKey));
+        }
+
+        // keys are exposed as strings, so a lookup has to match e.g. "1" to the integer key of a Map<Integer, ?>
+        private Object sourceKey(Object key) {
+            if (!(key instanceof String)) {
+                return NONE;
+            }
+            if (map.containsKey(key)) {
+                return key;
+            }
+            for (Object k : map.keySet()) {
+                if (!(k instanceof String) && key.equals(String.valueOf(k))) {
+                    return k;
+                }
+            }
+            return NONE;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<Object, Object>> iterator = map.entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<Object, Object> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(String.valueOf(entry.getKey()), toValue(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+
+    }
+
+}
@@ -23,27 +23,28 @@
  */
 package io.karatelabs.js;
 
-import net.minidev.json.JSONValue;
-
 import java.lang.reflect.*;
 import java.util.*;
 
 public interface JavaBridge {
 
+    // returns null if not found, results (including misses) are cached
+    default Class<?> forName(String className) {
+        return ClassCache.of(getClass()).forName(className);
+    }
+
     default boolean typeExists(String className) {
-        try {
-            Class.forName(className);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return forName(className) != null;
     }
 
     default Object construct(String className, Object[] args) {
         try {
-            Class<?> clazz = Class.forName(className);
-            Constructor<?> constructor = findConstructor(clazz, args);
-            return constructor.newInstance(args);
+            Class<?> clazz = loadClass(className);
+            JavaMembers.Resolved<Constructor<?>> constructor = JavaMembers.of(clazz).findConstructor(args);
+            if (constructor == null) {
+                throw new RuntimeException(clazz + " constructor not found, param types: " + Arrays.asList(paramTypes(args)));
+            }
+            return constructor.invoke(null, args);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -51,12 +52,12 @@ public interface JavaBridge {
 
     default Object invokeStatic(String className, String name, Object[] args) {
         try {
-            Class<?> clazz = Class.forName(className);
-            Method method = findMethod(clazz, name, args);
+            Class<?> clazz = loadClass(className);
+            JavaMembers.Resolved<Method> method = JavaMembers.of(clazz).findMethod(name, args);
             if (method == null) {
                 throw new RuntimeException("cannot find method [" + name + "] on class: " + clazz);
             }
-            return invoke(null, method, args);
+            return method.invoke(null, args);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -64,89 +65,89 @@ public interface JavaBridge {
 
     default Object invoke(Object object, String name, Object[] args) {
         try {
-            Method method = findMethod(object.getClass(), name, args);
+            JavaMembers.Resolved<Method> method = JavaMembers.of(object.getClass()).findMethod(name, args);
             if (method == null) {
                 throw new RuntimeException("cannot find method [" + name + "] on object: " + object.getClass());
             }
-            return invoke(object, method, args);
+            return method.invoke(object, args);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     default Object getStatic(String className, String name) {
-        Class<?> clazz = null;
-        try {
-            clazz = Class.forName(className);
-            Field field = clazz.getField(name);
+        Object result = probeStatic(loadClass(className), name);
+        if (result == Undefined.INSTANCE) {
+            throw new RuntimeException("no static field: " + name + " on class: " + className);
+        }
+        return result;
+    }
+
+    // like getStatic() but returns undefined instead of throwing if there is no such field or method
+    default Object probeStatic(Class<?> clazz, String name) {
+        JavaMembers members = JavaMembers.of(clazz);
+        JavaMembers.Accessor field = members.getField(name);
+        if (field != null) {
             return field.get(null);
-        } catch (Exception e) {
-            if (clazz != null) {
-                for (Method m : clazz.getMethods()) {
-                    if (m.getName().equals(name)) {
-                        JavaClass jc = new JavaClass(clazz);
-                        return new JavaInvokable(name, jc);
-                    }
-                }
-            }
-            throw new RuntimeException(e);
         }
+        if (members.hasMethod(name)) {
+            return new JavaInvokable(name, new JavaClass(clazz));
+        }
+        return Undefined.INSTANCE;
     }
 
     default void setStatic(String className, String name, Object value) {
-        Class<?> clazz = null;
         try {
-            clazz = Class.forName(className);
-            Field field = clazz.getField(name);
+            Class<?> clazz = loadClass(className);
+            JavaMembers.Accessor field = JavaMembers.of(clazz).getField(name);
+            if (field == null) {
+                throw new RuntimeException("no static field: " + name + " on class: " + clazz);
+            }
             field.set(null, value);
         } catch (Exception e) {
-            if (clazz != null) {
-                for (Method m : clazz.getMethods()) {
-                    if (m.getName().equals(name)) {
-                        JavaClass jc = new JavaClass(clazz);
-
-                    }
-                }
-            }
             throw new RuntimeException(e);
         }
     }
 
     default Object get(Object object, String name) {
-        Method method = findGetter(object, name);
-        if (method == null) {
-            try {
-                Field field = object.getClass().getField(name);
-                return field.get(object);
-            } catch (Exception e) {
-                for (Method m : object.getClass().getMethods()) {
-                    if (m.getName().equals(name)) {
-                        JavaObject jo = new JavaObject(object);
-                        return new JavaInvokable(name, jo);
-                    }
-                }
-                throw new RuntimeException("no instance property: " + name);
-            }
+        Object result = probe(object, name);
+        if (result == Undefined.INSTANCE) {
+            throw new RuntimeException("no instance property: " + name);
         }
-        try {
-            return method.invoke(object, EMPTY);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        return result;
+    }
+
+    // like get() but returns undefined instead of throwing if there is no such property or method
+    default Object probe(Object object, String name) {
+        JavaMembers members = JavaMembers.of(object.getClass());
+        JavaMembers.Accessor getter = members.findGetter(name);
+        if (getter == null) {
+            getter = members.getField(name);
+        }
+        if (getter != null) {
+            return getter.get(object);
         }
+        if (members.hasMethod(name)) {
+            JavaObject jo = new JavaObject(object);
+            return new JavaInvokable(name, jo);
+        }
+        return Undefined.INSTANCE;
     }
 
     default void set(Object object, String name, Object value) {
-        String setterName = "set" + name.substring(0, 1).toUpperCase() + name.substring(1);
         Object[] args = new Object[]{value};
-        try {
-            Method method = findMethod(object.getClass(), setterName, args);
-            if (method == null) {
-                return;
-            }
-            method.invoke(object, args);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        JavaMembers.Resolved<Method> setter = JavaMembers.of(object.getClass()).findSetter(name, args);
+        if (setter != null) {
+            setter.invoke(object, args);
+        }
+    }
+
+    private Class<?> loadClass(String className) {
+        Class<?> clazz = forName(className);
+        if (clazz == null) {
+            throw new RuntimeException("class not found: " + className);
         }
+        return clazz;
     }
 
     //==================================================================================================================
@@ -162,150 +163,41 @@ public interface JavaBridge {
         return paramTypes;
     }
 
-    private static Object invoke(Object object, Method method, Object[] args) throws InvocationTargetException, IllegalAccessException {
-        Class<?>[] paramTypes = method.getParameterTypes();
-        if (paramTypes.length > 0 && paramTypes[paramTypes.length - 1].equals(Object[].class)) {
-            List<Object> argsList = new ArrayList<>();
-            for (int i = 0; i < (paramTypes.length - 1); i++) {
-                argsList.add(args[i]);
-            }
-            List<Object> lastArg = new ArrayList<>();
-            for (int i = paramTypes.length - 1; i < args.length; i++) {
-                lastArg.add(args[i]);
-            }
-            argsList.add(lastArg.toArray());
-            return method.invoke(object, argsList.toArray());
-        } else {
-            return method.invoke(object, args);
-        }
-    }
-
     static Method findGetter(Object object, String name) {
-        String getterSuffix = name.substring(0, 1).toUpperCase() + name.substring(1);
-        Method method = findMethod(object.getClass(), "get" + getterSuffix, EMPTY);
-        if (method == null) {
-            method = findMethod(object.getClass(), "is" + getterSuffix, EMPTY);
-        }
-        return method;
+        JavaMembers.Accessor getter = JavaMembers.of(object.getClass()).findGetter(name);
+        return getter == null ? null : (Method) getter.member;
     }
 
     static Constructor<?> findConstructor(Class<?> clazz, Object[] args) {
-        try {
-            return clazz.getConstructor(paramTypes(args));
-        } catch (Exception e) {
-            for (Constructor<?> constructor : clazz.getConstructors()) {
-                Class<?>[] argTypes = constructor.getParameterTypes();
-                if (match(argTypes, args)) {
-                    return constructor;
-                }
-            }
+        JavaMembers.Resolved<Constructor<?>> resolved = JavaMembers.of(clazz).findConstructor(args);
+        if (resolved == null) {
+            throw new RuntimeException(clazz + " constructor not found, param types: " + Arrays.asList(paramTypes(args)));
         }
-        throw new RuntimeException(clazz + " constructor not found, param types: " + Arrays.asList(paramTypes(args)));
+        resolved.convertArgs(args);
+        return resolved.executable;
     }
 
+    // note that a js array (list) argument is converted in place (args is mutated) if the method expects an array
     public static Method findMethod(Class<?> clazz, String name, Object[] args) {
-        try {
-            return clazz.getMethod(name, paramTypes(args));
-        } catch (Exception e) {
-            for (Method method : clazz.getMethods()) {
-                if (method.getName().equals(name)) {
-                    Class<?>[] argTypes = method.getParameterTypes();
-                    if (match(argTypes, args)) {
-                        return method;
-                    }
-                }
-            }
+        JavaMembers.Resolved<Method> resolved = JavaMembers.of(clazz).findMethod(name, args);
+        if (resolved == null) {
             return null;
         }
+        resolved.convertArgs(args);
+        return resolved.executable;
     }
 
-    private static boolean match(Class<?>[] types, Object[] args) {
-        for (int i = 0; i < types.length; i++) {
-            if (i >= args.length) {
-                return false;
-            }
-            Object arg = args[i];
-            Class<?> argType = types[i];
-            if (argType.isArray()) {
-                if (arg instanceof List) {
-                    // convert list to array of correct type
-                    List<?> list = (List<?>) arg;
-                    Class<?> arrayType = argType.getComponentType();
-                    int count = list.size();
-                    Object result = Array.newInstance(arrayType, count);
-                    for (int j = 0; j < count; j++) {
-                        Array.set(result, j, list.get(j));
-                    }
-                    args[i] = result;
-                } else if (arg != null) { // nulls are ok
-                    return false;
-                }
-                if (i == (types.length - 1)) { // var args
-                    return true;
-                }
-                continue;
-            }
-            if (arg == null) {
-                continue;
-            }
-            if (argType.equals(int.class) && arg instanceof Integer) {
-                continue;
-            }
-            if (argType.equals(double.class) && arg instanceof Number) {
-                continue;
-            }
-            if (argType.equals(long.class) && (arg instanceof Integer || arg instanceof Long)) {
-                continue;
-            }
-            if (argType.equals(boolean.class) && arg instanceof Boolean) {
-                continue;
-            }
-            if (argType.equals(byte.class) && arg instanceof Byte) {
-                continue;
-            }
-            if (argType.equals(char.class) && arg instanceof Character) {
-                continue;
-            }
-            if (argType.equals(float.class) && arg instanceof Number) {
-                continue;
-            }
-            if (argType.equals(short.class) && arg instanceof Short) {
-                continue;
-            }
-            if (!argType.isAssignableFrom(arg.getClass())) {
-                return false;
-            }
-        }
-        return types.length == args.length;
-    }
-
-    @SuppressWarnings("unchecked")
     static Object toMap(Object object) {
         if (object == null) {
             return null;
         }
-        if (object instanceof Map) {
-            Map<String, Object> map = (Map<String, Object>) object;
-            Map<String, Object> result = new LinkedHashMap<>();
-            map.forEach((k, v) -> result.put(k, toMap(v)));
-            return result;
-        }
-        if (object instanceof String || object instanceof Number || object instanceof Boolean) {
-            return object;
-        }
-        // using json-smart asm based java-bean unpacking
-        String json = JSONValue.toJSONString(object);
-        return JSONValue.parse(json);
+        // a live view over the bean properties for java objects, no json round trip
+        return JavaBeanMap.toValue(object);
     }
 
     static Object convertIfArray(Object o) {
         if (o != null && o.getClass().isArray()) {
-            List<Object> list = new ArrayList<>();
-            int count = Array.getLength(o);
-            for (int i = 0; i < count; i++) {
-                list.add(Array.get(o, i));
-            }
-            return list;
+            return ArrayView.of(o);
         } else {
             return o;
         }
@@ -0,0 +1,254 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+// converts a js value to what a java parameter expects, chosen once per (parameter type, argument type)
+// together with a cost used to pick the most specific overload
+@FunctionalInterface
+interface JavaConverter {
+
+    Object convert(Object value);
+
+    int NOT_APPLICABLE = -1;
+
+    // numeric types in order of widening
+    static int rank(Class<?> type) {
+        if (type == byte.class || type == Byte.class) {
+            return 0;
+        } else if (type == short.class || type == Short.class) {
+            return 1;
+        } else if (type == int.class || type == Integer.class) {
+            return 2;
+        } else if (type == long.class || type == Long.class) {
+            return 3;
+        } else if (type == float.class || type == Float.class) {
+            return 4;
+        } else if (type == double.class || type == Double.class) {
+            return 5;
+        }
+        return -1;
+    }
+
+    static Class<?> wrapper(Class<?> type) {
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return type;
+    }
+
+    // lower is better, widening a number is cheaper than narrowing it
+    static int numberCost(Class<?> paramType, Class<?> argType) {
+        int paramRank = rank(paramType);
+        if (paramRank == -1) {
+            return NOT_APPLICABLE;
+        }
+        int argRank = rank(argType);
+        if (argRank == -1) { // BigDecimal and friends
+            argRank = 5;
+        }
+        return paramRank >= argRank ? paramRank - argRank : 8 + argRank - paramRank;
+    }
+
+    // argType is null for a null argument
+    static int cost(Class<?> paramType, Class<?> argType) {
+        if (argType == null) {
+            if (paramType.isPrimitive()) {
+                return NOT_APPLICABLE;
+            }
+            return paramType == Object.class ? 2 : 1;
+        }
+        if (paramType == argType || wrapper(paramType) == argType) {
+            return 0;
+        }
+        if (Number.class.isAssignableFrom(argType)) {
+            int cost = numberCost(paramType, argType);
+            if (cost != NOT_APPLICABLE) {
+                return paramType.isPrimitive() ? cost : cost + 1;
+            }
+        }
+        if (paramType.isPrimitive()) {
+            return NOT_APPLICABLE;
+        }
+        if (paramType.isAssignableFrom(argType)) {
+            if (paramType == Object.class) {
+                return 15;
+            }
+            if (paramType.isInterface()) {
+                return 5;
+            }
+            int steps = 1;
+            for (Class<?> c = argType.getSuperclass(); c != null && c != paramType; c = c.getSuperclass()) {
+                steps++;
+            }
+            return Math.min(steps, 4);
+        }
+        if (paramType.isArray() && List.class.isAssignableFrom(argType)) {
+            return 6;
+        }
+        if (JsFunction.class.isAssignableFrom(argType) && JavaProxy.sam(paramType) != null) {
+            return 7;
+        }
+        return NOT_APPLICABLE;
+    }
+
+    // null if no conversion is needed
+    static JavaConverter of(Class<?> paramType, Class<?> argType) {
+        if (argType == null || paramType == argType || wrapper(paramType) == argType) {
+            return null;
+        }
+        if (Number.class.isAssignableFrom(argType) && rank(paramType) != -1) {
+            Class<?> type = paramType.isPrimitive() ? paramType : primitive(paramType);
+            if (rank(type) <= 3 && (rank(argType) == -1 || rank(argType) > 3)) {
+                return value -> toExactNumber(type, value);
+            }
+            return value -> toNumber(type, value);
+        }
+        if (paramType.isArray() && List.class.isAssignableFrom(argType)) {
+            Class<?> componentType = paramType.getComponentType();
+            return value -> toArray((List<?>) value, componentType);
+        }
+        if (JsFunction.class.isAssignableFrom(argType) && !paramType.isAssignableFrom(argType)) {
+            JavaProxy.Sam sam = JavaProxy.sam(paramType);
+            if (sam != null) {
+                return value -> JavaProxy.of(sam, (JsFunction) value);
+            }
+        }
+        return null;
+    }
+
+    static Class<?> primitive(Class<?> type) {
+        if (type == Integer.class) {
+            return int.class;
+        } else if (type == Double.class) {
+            return double.class;
+        } else if (type == Long.class) {
+            return long.class;
+        } else if (type == Float.class) {
+            return float.class;
+        } else if (type == Short.class) {
+            return short.class;
+        } else if (type == Byte.class) {
+            return byte.class;
+        }
+        return type;
+    }
+
+    static Object toNumber(Class<?> type, Object value) {
+        if (!(value instanceof Number)) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (type == int.class) {
+            return number instanceof Integer ? number : number.intValue();
+        } else if (type == double.class) {
+            return number instanceof Double ? number : number.doubleValue();
+        } else if (type == long.class) {
+            return number instanceof Long ? number : number.longValue();
+        } else if (type == float.class) {
+            return number instanceof Float ? number : number.floatValue();
+        } else if (type == short.class) {
+            return number instanceof Short ? number : number.shortValue();
+        } else if (type == byte.class) {
+            return number instanceof Byte ? number : number.byteValue();
+        }
+        return value;
+    }
+
+    // a fraction (or a value out of range) would be silently lost when a decimal is narrowed to an integral type,
+    // float is left to round as usual
+    static Object toExactNumber(Class<?> type, Object value) {
+        Object result = toNumber(type, value);
+        if (result != value && rank(type) <= 3 && ((Number) result).doubleValue() != ((Number) value).doubleValue()) {
+            throw new RuntimeException("cannot convert " + value + " to " + type.getName() + " without losing precision");
+        }
+        return result;
+    }
+
+    // typed copies instead of Array.set() per element, narrowed as exactly as a single argument would be
+    static Object toArray(List<?> list, Class<?> componentType) {
+        Object backing = ArrayView.unwrap(list, componentType);
+        if (backing != null) {
+            return backing;
+        }
+        int size = list.size();
+        if (!componentType.isPrimitive()) {
+            return list.toArray((Object[]) Array.newInstance(componentType, size));
+        }
+        int i = 0;
+        if (componentType == int.class) {
+            int[] array = new int[size];
+            for (Object o : list) {
+                array[i++] = o instanceof Integer ? (Integer) o : (Integer) toExactNumber(int.class, o);
+            }
+            return array;
+        } else if (componentType == double.class) {
+            double[] array = new double[size];
+            for (Object o : list) {
+                array[i++] = ((Number) o).doubleValue();
+            }
+            return array;
+        } else if (componentType == long.class) {
+            long[] array = new long[size];
+            for (Object o : list) {
+                array[i++] = o instanceof Long ? (Long) o : (Long) toExactNumber(long.class, o);
+            }
+            return array;
+        } else if (componentType == byte.class) {
+            byte[] array = new byte[size];
+            for (Object o : list) {
+                array[i++] = o instanceof Byte ? (Byte) o : (Byte) toExactNumber(byte.class, o);
+            }
+            return array;
+        } else if (componentType == boolean.class) {
+            boolean[] array = new boolean[size];
+            for (Object o : list) {
+                array[i++] = (Boolean) o;
+            }
+            return array;
+        }
+        Object array = Array.newInstance(componentType, size); // float, short, char
+        for (Object o : list) {
+            Array.set(array, i++, componentType == char.class ? ArrayView.character(o) : toExactNumber(componentType, o));
+        }
+        return array;
+    }
+
+}
@@ -8,19 +8,20 @@ import java.util.function.Supplier;
 
 public class JavaFunction implements Invokable {
 
-    final Invokable invokable;
+    // all the supported types take at most one argument
+    final Function<Object, Object> function;
 
     @SuppressWarnings("unchecked")
     JavaFunction(Object o) {
         if (o instanceof Function) {
-            invokable = args -> ((Function<Object, Object>) o).apply(args[0]);
+            function = (Function<Object, Object>) o;
         } else if (o instanceof Runnable) {
-            invokable = args -> {
+            function = arg -> {
                 ((Runnable) o).run();
                 return null;
             };
         } else if (o instanceof Callable) {
-            invokable = args -> {
+            function = arg -> {
                 try {
                     return ((Callable<Object>) o).call();
                 } catch (Exception e) {
@@ -28,14 +29,14 @@ public class JavaFunction implements Invokable {
                 }
             };
         } else if (o instanceof Consumer) {
-            invokable = args -> {
-                ((Consumer<Object>) o).accept(args[0]);
+            function = arg -> {
+                ((Consumer<Object>) o).accept(arg);
                 return null;
             };
         } else if (o instanceof Supplier) {
-            invokable = args -> ((Supplier<Object>) o).get();
+            function = arg -> ((Supplier<Object>) o).get();
         } else if (o instanceof Predicate) {
-            invokable = args -> ((Predicate<Object>) o).test(args[0]);
+            function = arg -> ((Predicate<Object>) o).test(arg);
         } else {
             throw new RuntimeException("cannot convert to java function: " + o);
         }
@@ -52,7 +53,27 @@ public class JavaFunction implements Invokable {
 
     @Override
     public Object invoke(Object... args) {
-        return invokable.invoke(args);
+        return function.apply(args.length == 0 ? null : args[0]);
+    }
+
+    @Override
+    public Object invoke0() {
+        return function.apply(null);
+    }
+
+    @Override
+    public Object invoke1(Object arg0) {
+        return function.apply(arg0);
+    }
+
+    @Override
+    public Object invoke2(Object arg0, Object arg1) {
+        return function.apply(arg0);
+    }
+
+    @Override
+    public Object invoke3(Object arg0, Object arg1, Object arg2) {
+        return function.apply(arg0);
     }
 
 }
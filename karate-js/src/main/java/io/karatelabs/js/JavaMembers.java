@@ -0,0 +1,563 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// per-class reflection metadata, so that java interop does not call Class.getMethod() (and catch the
+// exception) or scan getMethods() on every call. ClassValue ensures classloaders are not held on to
+class JavaMembers {
+
+    private static final ClassValue<JavaMembers> CACHE = new ClassValue<JavaMembers>() {
+        @Override
+        protected JavaMembers computeValue(Class<?> type) {
+            return new JavaMembers(type);
+        }
+    };
+
+    static JavaMembers of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    private static final Object NONE = new Object();
+    private static final String CONSTRUCTOR = "<init>";
+
+    final Class<?> clazz;
+
+    private final Map<String, List<Method>> methodsByName = new HashMap<>();
+    private final Map<String, Field> fields = new HashMap<>();
+    private final Map<String, Accessor> fieldAccessors = new ConcurrentHashMap<>();
+    private final Constructor<?>[] constructors;
+
+    // resolved members keyed by name + argument types, a miss is cached as NONE, bounded since the
+    // argument classes (and so their classloaders) are held for as long as the member class is
+    static final int MAX_RESOLVED = 1024;
+    final Map<Signature, Object> resolved = new ConcurrentHashMap<>();
+    private final Map<String, Object> getters = new ConcurrentHashMap<>();
+    private final Map<String, String> setterNames = new ConcurrentHashMap<>();
+    private volatile Map<String, Accessor> properties;
+    private volatile Map<String, Method> setters;
+
+    private JavaMembers(Class<?> clazz) {
+        this.clazz = clazz;
+        for (Method method : clazz.getMethods()) {
+            Method accessible = accessible(method);
+            if (accessible != null) {
+                methodsByName.computeIfAbsent(method.getName(), k -> new ArrayList<>()).add(accessible);
+            }
+        }
+        for (Field field : clazz.getFields()) {
+            fields.putIfAbsent(field.getName(), field);
+        }
+        constructors = clazz.getConstructors();
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+        return Modifier.isPublic(type.getModifiers()) && type.getModule().isExported(type.getPackageName());
+    }
+
+    // a public method declared on a non-public class (e.g. ReferencePipeline.filter() for a stream) can only be
+    // called through the public interface or super class that declares it, null if there is none
+    static Method accessible(Method method) {
+        Class<?> declaring = method.getDeclaringClass();
+        if (isAccessible(declaring)) {
+            return method;
+        }
+        return accessible(declaring, method.getName(), method.getParameterTypes());
+    }
+
+    private static Method accessible(Class<?> type, String name, Class<?>[] paramTypes) {
+        if (type == null) {
+            return null;
+        }
+        if (isAccessible(type)) {
+            try {
+                return type.getMethod(name, paramTypes);
+            } catch (NoSuchMethodException e) {
+                // fall through to interfaces and super class
+            }
+        }
+        for (Class<?> iface : type.getInterfaces()) {
+            Method method = accessible(iface, name, paramTypes);
+            if (method != null) {
+                return method;
+            }
+        }
+        return accessible(type.getSuperclass(), name, paramTypes);
+    }
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    // a method or constructor resolved for a given list of argument types, invoked through a method handle
+    // adapted to (Object, Object[])Object, where the public lookup has no access (e.g. a public method of a
+    // non-public class), reflection is used
+    static class Resolved<T extends Executable> {
+
+        final T executable;
+        final Class<?>[] paramTypes;
+        final boolean varArgs; // the trailing args are packed into the last (array) param
+        private final JavaConverter[] converters; // one per arg, null if no arg needs converting
+        private final MethodHandle handle;
+
+        Resolved(T executable, Class<?>[] argTypes, boolean varArgs) {
+            this.executable = executable;
+            this.varArgs = varArgs;
+            paramTypes = executable.getParameterTypes();
+            int count = paramTypes.length;
+            JavaConverter[] temp = new JavaConverter[argTypes.length];
+            boolean convert = false;
+            for (int i = 0; i < argTypes.length; i++) {
+                Class<?> paramType = varArgs && i >= count - 1 ? paramTypes[count - 1].getComponentType() : paramTypes[i];
+                temp[i] = JavaConverter.of(paramType, argTypes[i]);
+                convert = convert || temp[i] != null;
+            }
+            converters = convert ? temp : null;
+            MethodHandle mh;
+            try {
+                if (executable instanceof Method) {
+                    Method method = (Method) executable;
+                    mh = LOOKUP.unreflect(method).asFixedArity();
+                    if (Modifier.isStatic(method.getModifiers())) {
+                        mh = spread(mh, count);
+                        mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                    } else {
+                        mh = mh.asType(MethodType.genericMethodType(count + 1)).asSpreader(Object[].class, count);
+                    }
+                } else {
+                    mh = spread(LOOKUP.unreflectConstructor((Constructor<?>) executable).asFixedArity(), count);
+                    mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                }
+            } catch (IllegalAccessException e) {
+                mh = null;
+            }
+            handle = mh;
+        }
+
+        private static MethodHandle spread(MethodHandle mh, int count) {
+            return mh.asType(MethodType.genericMethodType(count)).asSpreader(Object[].class, count);
+        }
+
+        // e.g. a js array (list) passed where the java method expects an array, args are converted in place
+        void convertArgs(Object[] args) {
+            if (converters == null) {
+                return;
+            }
+            for (int i = 0; i < args.length; i++) {
+                JavaConverter converter = converters[i];
+                if (converter != null) {
+                    args[i] = converter.convert(args[i]);
+                }
+            }
+        }
+
+        Object invoke(Object target, Object[] args) {
+            convertArgs(args);
+            if (varArgs) {
+                args = packVarArgs(args);
+            }
+            try {
+                if (handle != null) {
+                    return (Object) handle.invokeExact(target, args);
+                }
+                if (executable instanceof Method) {
+                    return ((Method) executable).invoke(target, args);
+                }
+                return ((Constructor<?>) executable).newInstance(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        private Object[] packVarArgs(Object[] args) {
+            int last = paramTypes.length - 1;
+            Object[] result = new Object[paramTypes.length];
+            System.arraycopy(args, 0, result, 0, last);
+            Class<?> componentType = paramTypes[last].getComponentType();
+            int count = args.length - last;
+            Object rest = Array.newInstance(componentType, count);
+            if (componentType.isPrimitive()) {
+                for (int i = 0; i < count; i++) {
+                    Array.set(rest, i, args[last + i]);
+                }
+            } else {
+                System.arraycopy(args, last, rest, 0, count);
+            }
+            result[last] = rest;
+            return result;
+        }
+
+    }
+
+    // bean getter or (public) field, static fields take a null target
+    static class Accessor {
+
+        final Member member;
+        final Class<?> type;
+        private final MethodHandle getter; // (Object)Object
+        private final MethodHandle setter; // (Object, Object)void, null if read-only
+
+        Accessor(Method method) {
+            member = method;
+            type = method.getReturnType();
+            MethodHandle mh;
+            try {
+                mh = LOOKUP.unreflect(method);
+                if (Modifier.isStatic(method.getModifiers())) { // e.g. a static getName() read as obj.name
+                    mh = MethodHandles.dropArguments(mh.asType(MethodType.methodType(Object.class)), 0, Object.class);
+                } else {
+                    mh = mh.asType(MethodType.methodType(Object.class, Object.class));
+                }
+            } catch (IllegalAccessException e) {
+                mh = null;
+            }
+            getter = mh;
+            setter = null;
+        }
+
+        Accessor(Field field) {
+            member = field;
+            type = field.getType();
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            MethodHandle mh;
+            try {
+                mh = LOOKUP.unreflectGetter(field).asType(MethodType.methodType(Object.class, isStatic ? new Class<?>[0] : new Class<?>[]{Object.class}));
+                if (isStatic) {
+                    mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                }
+            } catch (IllegalAccessException e) {
+                mh = null;
+            }
+            getter = mh;
+            try {
+                mh = LOOKUP.unreflectSetter(field);
+                mh = isStatic ? mh.asType(MethodType.methodType(void.class, Object.class))
+                        : mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+                if (isStatic) {
+                    mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                }
+            } catch (IllegalAccessException e) { // final field
+                mh = null;
+            }
+            setter = mh;
+        }
+
+        Object get(Object target) {
+            try {
+                if (getter != null) {
+                    return (Object) getter.invokeExact(target);
+                }
+                if (member instanceof Method) {
+                    return ((Method) member).invoke(target);
+                }
+                return ((Field) member).get(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        void set(Object target, Object value) {
+            value = type.isPrimitive() ? JavaConverter.toExactNumber(type, value) : value;
+            try {
+                if (setter != null) {
+                    setter.invokeExact(target, value);
+                } else {
+                    ((Field) member).set(target, value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+    }
+
+    boolean hasMethod(String name) {
+        return methodsByName.containsKey(name);
+    }
+
+    Accessor getField(String name) {
+        Field field = fields.get(name);
+        if (field == null) {
+            return null;
+        }
+        return fieldAccessors.computeIfAbsent(name, k -> new Accessor(field));
+    }
+
+    @SuppressWarnings("unchecked")
+    Resolved<Method> findMethod(String name, Object[] args) {
+        Signature signature = new Signature(name, args);
+        Object result = resolved.get(signature);
+        if (result == null) {
+            List<Method> candidates = methodsByName.get(name);
+            Resolved<Method> method = candidates == null ? null : resolve(candidates, signature.argTypes);
+            result = method == null ? NONE : method;
+            cache(signature, result);
+        }
+        return result == NONE ? null : (Resolved<Method>) result;
+    }
+
+    @SuppressWarnings("unchecked")
+    Resolved<Constructor<?>> findConstructor(Object[] args) {
+        Signature signature = new Signature(CONSTRUCTOR, args);
+        Object result = resolved.get(signature);
+        if (result == null) {
+            Resolved<Constructor<?>> constructor = resolve(Arrays.asList(constructors), signature.argTypes);
+            result = constructor == null ? NONE : constructor;
+            cache(signature, result);
+        }
+        return result == NONE ? null : (Resolved<Constructor<?>>) result;
+    }
+
+    private void cache(Signature signature, Object result) {
+        if (resolved.size() >= MAX_RESOLVED) { // crude, same as ClassCache
+            resolved.clear();
+        }
+        resolved.put(signature, result);
+    }
+
+    Accessor findGetter(String name) {
+        Object result = getters.get(name);
+        if (result == null) {
+            String suffix = name.substring(0, 1).toUpperCase() + name.substring(1);
+            Method method = findNoArgMethod("get" + suffix);
+            if (method == null) {
+                method = findNoArgMethod("is" + suffix);
+            }
+            result = method == null ? NONE : new Accessor(method);
+            getters.put(name, result);
+        }
+        return result == NONE ? null : (Accessor) result;
+    }
+
+    // bean properties: getters (except getClass) and public instance fields
+    Map<String, Accessor> getProperties() {
+        Map<String, Accessor> result = properties;
+        if (result == null) {
+            result = new LinkedHashMap<>();
+            for (Method method : clazz.getMethods()) {
+                if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String methodName = method.getName();
+                String name;
+                if (methodName.startsWith("get") && methodName.length() > 3 && !"getClass".equals(methodName)) {
+                    name = propertyName(methodName.substring(3));
+                } else if (methodName.startsWith("is") && methodName.length() > 2 && method.getReturnType() == boolean.class) {
+                    name = propertyName(methodName.substring(2));
+                } else {
+                    continue;
+                }
+                Accessor getter = findGetter(name);
+                if (getter != null) {
+                    result.putIfAbsent(name, getter);
+                }
+            }
+            for (Field field : fields.values()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    result.putIfAbsent(field.getName(), getField(field.getName()));
+                }
+            }
+            properties = result = Collections.unmodifiableMap(result);
+        }
+        return result;
+    }
+
+    // bean setters keyed by property name, where a setter is overloaded the one matching the getter type wins
+    Map<String, Method> getSetters() {
+        Map<String, Method> result = setters;
+        if (result == null) {
+            result = new LinkedHashMap<>();
+            for (List<Method> methods : methodsByName.values()) {
+                for (Method method : methods) {
+                    String methodName = method.getName();
+                    if (method.getParameterCount() != 1 || Modifier.isStatic(method.getModifiers())
+                            || !methodName.startsWith("set") || methodName.length() == 3) {
+                        continue;
+                    }
+                    String name = propertyName(methodName.substring(3));
+                    Method existing = result.get(name);
+                    if (existing == null) {
+                        result.put(name, method);
+                    } else {
+                        Accessor getter = findGetter(name);
+                        if (getter != null && getter.type == method.getParameterTypes()[0]) {
+                            result.put(name, method);
+                        }
+                    }
+                }
+            }
+            result = Collections.unmodifiableMap(result);
+            setters = result;
+        }
+        return result;
+    }
+
+    // same rule as java.beans.Introspector.decapitalize(), so getURL() is "URL"
+    private static String propertyName(String suffix) {
+        if (suffix.length() > 1 && Character.isUpperCase(suffix.charAt(0)) && Character.isUpperCase(suffix.charAt(1))) {
+            return suffix;
+        }
+        return Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+    }
+
+    Resolved<Method> findSetter(String name, Object[] args) {
+        String setterName = setterNames.computeIfAbsent(name, k -> "set" + k.substring(0, 1).toUpperCase() + k.substring(1));
+        return findMethod(setterName, args);
+    }
+
+    private Method findNoArgMethod(String name) {
+        List<Method> candidates = methodsByName.get(name);
+        if (candidates != null) {
+            for (Method method : candidates) {
+                if (method.getParameterCount() == 0) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    // the candidate with the lowest total conversion cost wins, on a tie the one with the more specific
+    // param types, a var-args call costs more than a call that matches the params as declared
+    private static <T extends Executable> Resolved<T> resolve(List<T> candidates, Class<?>[] argTypes) {
+        T best = null;
+        Class<?>[] bestTypes = null;
+        boolean bestVarArgs = false;
+        int bestScore = Integer.MAX_VALUE;
+        for (T candidate : candidates) {
+            Class<?>[] types = candidate.getParameterTypes();
+            int score = score(types, argTypes);
+            boolean varArgs = false;
+            if (candidate.isVarArgs() || (types.length > 0 && types[types.length - 1] == Object[].class)) {
+                int varArgsScore = scoreVarArgs(types, argTypes);
+                if (varArgsScore != JavaConverter.NOT_APPLICABLE && (score == JavaConverter.NOT_APPLICABLE || varArgsScore < score)) {
+                    score = varArgsScore;
+                    varArgs = true;
+                }
+            }
+            if (score == JavaConverter.NOT_APPLICABLE) {
+                continue;
+            }
+            if (score < bestScore || (score == bestScore && moreSpecific(types, bestTypes))) {
+                best = candidate;
+                bestTypes = types;
+                bestVarArgs = varArgs;
+                bestScore = score;
+            }
+        }
+        return best == null ? null : new Resolved<>(best, argTypes, bestVarArgs);
+    }
+
+    private static int score(Class<?>[] types, Class<?>[] argTypes) {
+        if (types.length != argTypes.length) {
+            return JavaConverter.NOT_APPLICABLE;
+        }
+        int score = 0;
+        for (int i = 0; i < types.length; i++) {
+            int cost = JavaConverter.cost(types[i], argTypes[i]);
+            if (cost == JavaConverter.NOT_APPLICABLE) {
+                return cost;
+            }
+            score += cost;
+        }
+        return score;
+    }
+
+    private static int scoreVarArgs(Class<?>[] types, Class<?>[] argTypes) {
+        int last = types.length - 1;
+        if (argTypes.length < last) {
+            return JavaConverter.NOT_APPLICABLE;
+        }
+        Class<?> componentType = types[last].getComponentType();
+        int score = 10;
+        for (int i = 0; i < argTypes.length; i++) {
+            int cost = JavaConverter.cost(i < last ? types[i] : componentType, argTypes[i]);
+            if (cost == JavaConverter.NOT_APPLICABLE) {
+                return cost;
+            }
+            score += cost;
+        }
+        return score;
+    }
+
+    private static boolean moreSpecific(Class<?>[] types, Class<?>[] otherTypes) {
+        if (types.length != otherTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (!JavaConverter.wrapper(otherTypes[i]).isAssignableFrom(JavaConverter.wrapper(types[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class Signature {
+
+        final String name;
+        final Class<?>[] argTypes; // null for a null argument
+        final int hash;
+
+        Signature(String name, Object[] args) {
+            this.name = name;
+            argTypes = new Class<?>[args.length];
+            int temp = name.hashCode();
+            for (int i = 0; i < args.length; i++) {
+                Object arg = args[i];
+                argTypes[i] = arg == null ? null : arg.getClass();
+                temp = 31 * temp + (arg == null ? 0 : argTypes[i].hashCode());
+            }
+            hash = temp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature that = (Signature) o;
+            return hash == that.hash && name.equals(that.name) && Arrays.equals(argTypes, that.argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
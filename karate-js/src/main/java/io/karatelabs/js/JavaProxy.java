@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+
+// implements a java functional interface (Function, Predicate, Comparator, Runnable ...) on top of a js function
+// so that js callbacks can be handed to java methods directly, the interface metadata is resolved once per class
+class JavaProxy implements InvocationHandler {
+
+    private static final ClassValue<Sam> CACHE = new ClassValue<Sam>() {
+        @Override
+        protected Sam computeValue(Class<?> type) {
+            Method method = findSam(type);
+            return method == null ? null : new Sam(type, method);
+        }
+    };
+
+    static class Sam {
+
+        final Class<?> type;
+        final Method method;
+        final Class<?> returnType;
+
+        Sam(Class<?> type, Method method) {
+            this.type = type;
+            this.method = method;
+            returnType = method.getReturnType();
+        }
+
+    }
+
+    // null if the class is not a functional interface
+    static Sam sam(Class<?> type) {
+        return type.isInterface() ? CACHE.get(type) : null;
+    }
+
+    private static Method findSam(Class<?> type) {
+        Method result = null;
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            if (result != null) {
+                if (result.getName().equals(method.getName()) && result.getParameterCount() == method.getParameterCount()) {
+                    continue; // same method re-declared with a more specific (generic) signature
+                }
+                return null;
+            }
+            result = method;
+        }
+        return result;
+    }
+
+    // e.g. Comparator re-declares equals()
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static Object of(Sam sam, JsFunction function) {
+        ClassLoader classLoader = sam.type.getClassLoader();
+        if (classLoader == null) { // jdk interfaces
+            classLoader = JavaProxy.class.getClassLoader();
+        }
+        return Proxy.newProxyInstance(classLoader, new Class<?>[]{sam.type}, new JavaProxy(sam, function));
+    }
+
+    private final Sam sam;
+    private final JsFunction function;
+
+    private JavaProxy(Sam sam, JsFunction function) {
+        this.sam = sam;
+        this.function = function;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "[js proxy " + sam.type.getName() + "]";
+            }
+        }
+        if (method.isDefault()) { // e.g. Comparator.reversed(), which calls back into the proxy
+            return invokeDefault(proxy, method, args);
+        }
+        Object result;
+        if (args == null) {
+            result = function.invoke0();
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                args[i] = JavaBridge.convertIfArray(args[i]);
+            }
+            switch (args.length) {
+                case 1:
+                    result = function.invoke1(args[0]);
+                    break;
+                case 2:
+                    result = function.invoke2(args[0], args[1]);
+                    break;
+                default:
+                    result = function.invoke(args);
+            }
+        }
+        return toReturn(sam.returnType, result);
+    }
+
+    // InvocationHandler.invokeDefault() is java 16+, looked up reflectively to stay on the java 11 api
+    private static final Method INVOKE_DEFAULT;
+
+    static {
+        Method method;
+        try {
+            method = InvocationHandler.class.getMethod("invokeDefault", Object.class, Method.class, Object[].class);
+        } catch (NoSuchMethodException e) {
+            method = null;
+        }
+        INVOKE_DEFAULT = method;
+    }
+
+    private static Object invokeDefault(Object proxy, Method method, Object[] args) {
+        try {
+            if (INVOKE_DEFAULT != null) {
+                return INVOKE_DEFAULT.invoke(null, proxy, method, args);
+            }
+            Class<?> type = method.getDeclaringClass();
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                    .unreflectSpecial(method, type).bindTo(proxy).invokeWithArguments(args == null ? new Object[0] : args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException("cannot call default method on js function proxy: " + method, t);
+        }
+    }
+
+    // only primitive returns are coerced, a boxed return type keeps null
+    private static Object toReturn(Class<?> type, Object result) {
+        if (type == void.class) {
+            return null;
+        }
+        if (result == Undefined.INSTANCE) {
+            result = null;
+        }
+        if (result == null && !type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return Terms.isTruthy(result);
+        }
+        if (type == char.class || type == Character.class) {
+            return ArrayView.character(result);
+        }
+        if (JavaConverter.rank(type) != -1) {
+            Class<?> primitive = type.isPrimitive() ? type : JavaConverter.primitive(type);
+            return JavaConverter.toNumber(primitive, result == null ? 0 : Terms.toNumber(result));
+        }
+        return result;
+    }
+
+}
@@ -24,6 +24,11 @@
 package io.karatelabs.js;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class JsArray extends JsObject {
 
@@ -49,11 +54,12 @@ public class JsArray extends JsObject {
                     case "map":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 List<Object> results = new ArrayList<>();
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    Object result = invokable.invoke(kv.value, kv.index);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object result = invokable.invoke2(cursor.value(), cursor.index());
                                     results.add(result);
                                 }
                                 return results;
@@ -62,13 +68,15 @@ public class JsArray extends JsObject {
                     case "filter":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 List<Object> results = new ArrayList<>();
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    Object result = invokable.invoke(kv.value, kv.index);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object value = cursor.value();
+                                    Object result = invokable.invoke2(value, cursor.index());
                                     if (Terms.isTruthy(result)) {
-                                        results.add(kv.value);
+                                        results.add(value);
                                     }
                                 }
                                 return results;
@@ -77,7 +85,7 @@ public class JsArray extends JsObject {
                     case "join":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 StringBuilder sb = new StringBuilder();
                                 String delimiter;
                                 if (args.length > 0 && args[0] != null) {
@@ -85,11 +93,12 @@ public class JsArray extends JsObject {
                                 } else {
                                     delimiter = ",";
                                 }
-                                for (KeyValue kv : this) {
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
                                     if (sb.length() != 0) {
                                         sb.append(delimiter);
                                     }
-                                    sb.append(kv.value);
+                                    sb.append(cursor.value());
                                 }
                                 return sb.toString();
                             }
@@ -97,12 +106,14 @@ public class JsArray extends JsObject {
                     case "find":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    Object result = invokable.invoke(kv.value, kv.index);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object value = cursor.value();
+                                    Object result = invokable.invoke2(value, cursor.index());
                                     if (Terms.isTruthy(result)) {
-                                        return kv.value;
+                                        return value;
                                     }
                                 }
                                 return Undefined.INSTANCE;
@@ -111,12 +122,13 @@ public class JsArray extends JsObject {
                     case "findIndex":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    Object result = invokable.invoke(kv.value, kv.index);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object result = invokable.invoke2(cursor.value(), cursor.index());
                                     if (Terms.isTruthy(result)) {
-                                        return kv.index;
+                                        return cursor.index();
                                     }
                                 }
                                 return -1;
@@ -125,18 +137,17 @@ public class JsArray extends JsObject {
                     case "push":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
-                                JsArray thisArray = asArray(thisObject);
-                                for (Object o : args) {
-                                    thisArray.add(o);
-                                }
-                                return thisArray.size();
+                            public Object apply(Object thisObject, Object[] args) {
+                                return mutate(asArray(thisObject), list -> {
+                                    list.addAll(Arrays.asList(args));
+                                    return list.size();
+                                });
                             }
                         };
                     case "reverse":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 List<Object> result = new ArrayList<>();
@@ -149,9 +160,10 @@ public class JsArray extends JsObject {
                     case "includes":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
-                                for (KeyValue kv : this) {
-                                    if (Terms.eq(kv.value, args[0], false)) {
+                            public Object apply(Object thisObject, Object[] args) {
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    if (Terms.eq(cursor.value(), args[0], false)) {
                                         return true;
                                     }
                                 }
@@ -161,7 +173,7 @@ public class JsArray extends JsObject {
                     case "indexOf":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0) {
@@ -192,7 +204,7 @@ public class JsArray extends JsObject {
                     case "slice":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 int start = 0;
@@ -221,10 +233,11 @@ public class JsArray extends JsObject {
                     case "forEach":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    invokable.invoke(kv.value, kv.index, thisObject);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    invokable.invoke3(cursor.value(), cursor.index(), thisObject);
                                 }
                                 return Undefined.INSTANCE;
                             }
@@ -233,7 +246,7 @@ public class JsArray extends JsObject {
                         return new JsFunction() {
                             @Override
                             @SuppressWarnings("unchecked")
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 List<Object> result = new ArrayList<>(thisArray.toList());
                                 for (Object arg : args) {
@@ -251,14 +264,15 @@ public class JsArray extends JsObject {
                     case "every":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 if (thisArray.size() == 0) {
                                     return true;
                                 }
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    Object result = invokable.invoke(kv.value, kv.index, thisArray);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object result = invokable.invoke3(cursor.value(), cursor.index(), thisArray);
                                     if (!Terms.isTruthy(result)) {
                                         return false;
                                     }
@@ -269,14 +283,15 @@ public class JsArray extends JsObject {
                     case "some":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 if (thisArray.size() == 0) {
                                     return false;
                                 }
                                 Invokable invokable = toInvokable(args);
-                                for (KeyValue kv : this) {
-                                    Object result = invokable.invoke(kv.value, kv.index, thisArray);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object result = invokable.invoke3(cursor.value(), cursor.index(), thisArray);
                                     if (Terms.isTruthy(result)) {
                                         return true;
                                     }
@@ -287,7 +302,7 @@ public class JsArray extends JsObject {
                     case "reduce":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 Invokable callback = toInvokable(args);
                                 if (thisArray.size() == 0 && args.length < 2) {
@@ -308,10 +323,60 @@ public class JsArray extends JsObject {
                                 return accumulator;
                             }
                         };
+                    // data-parallel variants, the callback is invoked concurrently so it should not write shared state
+                    // results keep the order of the array, an optional last argument is the ForkJoinPool to use
+                    case "parallelMap":
+                        return new JsFunction() {
+                            @Override
+                            public Object apply(Object thisObject, Object[] args) {
+                                Object[] items = asArray(thisObject).toList().toArray();
+                                Invokable callback = toInvokable(args);
+                                Object[] results = inPool(args, () -> IntStream.range(0, items.length).parallel()
+                                        .mapToObj(i -> callback.invoke2(items[i], i)).toArray());
+                                return new ArrayList<>(Arrays.asList(results));
+                            }
+                        };
+                    case "parallelFilter":
+                        return new JsFunction() {
+                            @Override
+                            public Object apply(Object thisObject, Object[] args) {
+                                Object[] items = asArray(thisObject).toList().toArray();
+                                Invokable callback = toInvokable(args);
+                                boolean[] keep = new boolean[items.length];
+                                inPool(args, () -> {
+                                    IntStream.range(0, items.length).parallel()
+                                            .forEach(i -> keep[i] = Terms.isTruthy(callback.invoke2(items[i], i)));
+                                    return null;
+                                });
+                                List<Object> results = new ArrayList<>();
+                                for (int i = 0; i < items.length; i++) {
+                                    if (keep[i]) {
+                                        results.add(items[i]);
+                                    }
+                                }
+                                return results;
+                            }
+                        };
+                    case "parallelReduce": // the callback must be associative and the initial value an identity for it
+                        return new JsFunction() {
+                            @Override
+                            public Object apply(Object thisObject, Object[] args) {
+                                Object[] items = asArray(thisObject).toList().toArray();
+                                Invokable callback = toInvokable(args);
+                                boolean hasInitial = args.length >= 2 && !(args[1] instanceof ForkJoinPool);
+                                if (items.length == 0 && !hasInitial) {
+                                    throw new RuntimeException("parallelReduce() called on empty array with no initial value");
+                                }
+                                BinaryOperator<Object> reducer = callback::invoke2;
+                                return inPool(args, () -> hasInitial
+                                        ? Arrays.stream(items).parallel().reduce(args[1], reducer)
+                                        : Arrays.stream(items).parallel().reduce(reducer).orElse(null));
+                            }
+                        };
                     case "reduceRight":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 Invokable callback = toInvokable(args);
                                 if (thisArray.size() == 0 && args.length < 2) {
@@ -335,7 +400,7 @@ public class JsArray extends JsObject {
                     case "flat":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int depth = 1;
                                 if (args.length > 0 && args[0] != null) {
@@ -353,7 +418,7 @@ public class JsArray extends JsObject {
                         return new JsFunction() {
                             @SuppressWarnings("unchecked")
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 Invokable callback = toInvokable(args);
                                 if (callback == null) {
@@ -362,7 +427,7 @@ public class JsArray extends JsObject {
                                 List<Object> mappedResult = new ArrayList<>();
                                 int index = 0;
                                 for (Object item : thisArray.toList()) {
-                                    Object mapped = callback.invoke(item, index, thisArray);
+                                    Object mapped = callback.invoke3(item, index, thisArray);
                                     if (mapped instanceof List || mapped instanceof JsArray) {
                                         List<Object> nestedList;
                                         if (mapped instanceof JsArray) {
@@ -382,7 +447,7 @@ public class JsArray extends JsObject {
                     case "sort":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 List<Object> list = new ArrayList<>(thisArray.toList());
                                 if (list.isEmpty()) {
@@ -391,7 +456,7 @@ public class JsArray extends JsObject {
                                 if (args.length > 0 && args[0] instanceof Invokable) {
                                     Invokable compareFn = (Invokable) args[0];
                                     list.sort((a, b) -> {
-                                        Object result = compareFn.invoke(a, b);
+                                        Object result = compareFn.invoke2(a, b);
                                         if (result instanceof Number) {
                                             return ((Number) result).intValue();
                                         }
@@ -419,7 +484,7 @@ public class JsArray extends JsObject {
                     case "fill":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 if (args.length == 0) {
                                     return thisObject;
                                 }
@@ -454,99 +519,60 @@ public class JsArray extends JsObject {
                     case "splice":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 if (args.length == 0) {
                                     return new ArrayList<>();
                                 }
-                                JsArray thisArray = asArray(thisObject);
-                                int size = thisArray.size();
-                                if (size == 0) {
-                                    return new ArrayList<>();
-                                }
-                                int start = 0;
-                                if (args[0] != null) {
-                                    start = Terms.toNumber(args[0]).intValue();
-                                    if (start < 0) {
-                                        start = Math.max(size + start, 0);
+                                return mutate(asArray(thisObject), list -> {
+                                    int size = list.size();
+                                    List<Object> removedElements = new ArrayList<>();
+                                    if (size == 0) {
+                                        return removedElements;
+                                    }
+                                    int start = 0;
+                                    if (args[0] != null) {
+                                        start = Terms.toNumber(args[0]).intValue();
+                                        if (start < 0) {
+                                            start = Math.max(size + start, 0);
+                                        }
+                                    }
+                                    start = Math.min(start, size);
+                                    int deleteCount = size - start;
+                                    if (args.length > 1 && args[1] != null) {
+                                        deleteCount = Terms.toNumber(args[1]).intValue();
+                                        deleteCount = Math.min(Math.max(deleteCount, 0), size - start);
+                                    }
+                                    for (int i = 0; i < deleteCount; i++) {
+                                        removedElements.add(list.remove(start));
                                     }
-                                }
-                                start = Math.min(start, size);
-                                int deleteCount = size - start;
-                                if (args.length > 1 && args[1] != null) {
-                                    deleteCount = Terms.toNumber(args[1]).intValue();
-                                    deleteCount = Math.min(Math.max(deleteCount, 0), size - start);
-                                }
-                                List<Object> elementsToAdd = new ArrayList<>();
-                                if (args.length > 2) {
                                     for (int i = 2; i < args.length; i++) {
-                                        elementsToAdd.add(args[i]);
+                                        list.add(start + i - 2, args[i]);
                                     }
-                                }
-                                List<Object> removedElements = new ArrayList<>();
-                                for (int i = start; i < start + deleteCount; i++) {
-                                    removedElements.add(thisArray.get(i));
-                                }
-                                int newSize = size - deleteCount + elementsToAdd.size();
-                                List<Object> newList = new ArrayList<>(newSize);
-                                for (int i = 0; i < start; i++) {
-                                    newList.add(thisArray.get(i));
-                                }
-                                newList.addAll(elementsToAdd);
-                                for (int i = start + deleteCount; i < size; i++) {
-                                    newList.add(thisArray.get(i));
-                                }
-                                // update original array
-                                List<Object> originalList = thisArray.toList();
-                                originalList.clear();
-                                originalList.addAll(newList);
-                                return removedElements;
+                                    return removedElements;
+                                });
                             }
                         };
                     case "shift":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
-                                JsArray thisArray = asArray(thisObject);
-                                int size = thisArray.size();
-                                if (size == 0) {
-                                    return Undefined.INSTANCE;
-                                }
-                                Object firstElement = thisArray.get(0);
-                                List<Object> newList = new ArrayList<>(size - 1);
-                                for (int i = 1; i < size; i++) {
-                                    newList.add(thisArray.get(i));
-                                }
-                                // update original array
-                                List<Object> originalList = thisArray.toList();
-                                originalList.clear();
-                                originalList.addAll(newList);
-                                return firstElement;
+                            public Object apply(Object thisObject, Object[] args) {
+                                return mutate(asArray(thisObject), list -> list.isEmpty() ? Undefined.INSTANCE : list.remove(0));
                             }
                         };
                     case "unshift":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
-                                JsArray thisArray = asArray(thisObject);
-                                if (args.length == 0) {
-                                    return thisArray.size();
-                                }
-                                List<Object> newList = new ArrayList<>(thisArray.size() + args.length);
-                                newList.addAll(Arrays.asList(args));
-                                for (int i = 0; i < thisArray.size(); i++) {
-                                    newList.add(thisArray.get(i));
-                                }
-                                // update original array
-                                List<Object> originalList = thisArray.toList();
-                                originalList.clear();
-                                originalList.addAll(newList);
-                                return originalList.size();
+                            public Object apply(Object thisObject, Object[] args) {
+                                return mutate(asArray(thisObject), list -> {
+                                    list.addAll(0, Arrays.asList(args));
+                                    return list.size();
+                                });
                             }
                         };
                     case "lastIndexOf":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0) {
@@ -584,28 +610,14 @@ public class JsArray extends JsObject {
                     case "pop":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
-                                JsArray thisArray = asArray(thisObject);
-                                int size = thisArray.size();
-                                if (size == 0) {
-                                    return Undefined.INSTANCE;
-                                }
-                                Object lastElement = thisArray.get(size - 1);
-                                List<Object> newList = new ArrayList<>(size - 1);
-                                for (int i = 0; i < size - 1; i++) {
-                                    newList.add(thisArray.get(i));
-                                }
-                                // update original array
-                                List<Object> originalList = thisArray.toList();
-                                originalList.clear();
-                                originalList.addAll(newList);
-                                return lastElement;
+                            public Object apply(Object thisObject, Object[] args) {
+                                return mutate(asArray(thisObject), list -> list.isEmpty() ? Undefined.INSTANCE : list.remove(list.size() - 1));
                             }
                         };
                     case "at":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0 || args.length == 0 || args[0] == null) {
@@ -624,7 +636,7 @@ public class JsArray extends JsObject {
                     case "copyWithin":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0 || args.length == 0) {
@@ -676,7 +688,7 @@ public class JsArray extends JsObject {
                     case "keys":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 List<Object> result = new ArrayList<>();
                                 int size = thisArray.size();
@@ -689,7 +701,7 @@ public class JsArray extends JsObject {
                     case "values":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 return thisArray.toList();
                             }
@@ -697,7 +709,7 @@ public class JsArray extends JsObject {
                     case "entries":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 List<Object> result = new ArrayList<>();
                                 int size = thisArray.size();
@@ -713,7 +725,7 @@ public class JsArray extends JsObject {
                     case "findLast":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0 || args.length == 0) {
@@ -722,7 +734,7 @@ public class JsArray extends JsObject {
                                 Invokable invokable = toInvokable(args);
                                 for (int i = size - 1; i >= 0; i--) {
                                     Object value = thisArray.get(i);
-                                    Object result = invokable.invoke(value, i, thisArray);
+                                    Object result = invokable.invoke3(value, i, thisArray);
                                     if (Terms.isTruthy(result)) {
                                         return value;
                                     }
@@ -733,7 +745,7 @@ public class JsArray extends JsObject {
                     case "findLastIndex":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0 || args.length == 0) {
@@ -742,7 +754,7 @@ public class JsArray extends JsObject {
                                 Invokable invokable = toInvokable(args);
                                 for (int i = size - 1; i >= 0; i--) {
                                     Object value = thisArray.get(i);
-                                    Object result = invokable.invoke(value, i, thisArray);
+                                    Object result = invokable.invoke3(value, i, thisArray);
                                     if (Terms.isTruthy(result)) {
                                         return i;
                                     }
@@ -753,7 +765,7 @@ public class JsArray extends JsObject {
                     case "with":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 int size = thisArray.size();
                                 if (size == 0 || args.length < 2) {
@@ -777,20 +789,22 @@ public class JsArray extends JsObject {
                     case "group":
                         return new JsFunction() {
                             @Override
-                            public Object invoke(Object... args) {
+                            public Object apply(Object thisObject, Object[] args) {
                                 JsArray thisArray = asArray(thisObject);
                                 if (args.length == 0) {
                                     return new JsObject();
                                 }
                                 Invokable callbackFn = toInvokable(args);
                                 Map<String, List<Object>> groups = new HashMap<>();
-                                for (KeyValue kv : this) {
-                                    Object key = callbackFn.invoke(kv.value, kv.index, thisArray);
+                                Cursor cursor = Cursor.of(thisObject);
+                                while (cursor.next()) {
+                                    Object value = cursor.value();
+                                    Object key = callbackFn.invoke3(value, cursor.index(), thisArray);
                                     String keyStr = key == null ? "null" : key.toString();
                                     if (!groups.containsKey(keyStr)) {
                                         groups.put(keyStr, new ArrayList<>());
                                     }
-                                    groups.get(keyStr).add(kv.value);
+                                    groups.get(keyStr).add(value);
                                 }
                                 JsObject result = new JsObject();
                                 for (Map.Entry<String, List<Object>> entry : groups.entrySet()) {
@@ -808,8 +822,9 @@ public class JsArray extends JsObject {
                                 invokable = (Invokable) args[1];
                             }
                             JsArray array = asArray(args[0]);
-                            for (KeyValue kv : toIterable(array)) {
-                                Object result = invokable == null ? kv.value : invokable.invoke(kv.value, kv.index);
+                            Cursor cursor = Cursor.of(array);
+                            while (cursor.next()) {
+                                Object result = invokable == null ? cursor.value() : invokable.invoke2(cursor.value(), cursor.index());
                                 results.add(result);
                             }
                             return results;
@@ -886,6 +901,22 @@ public class JsArray extends JsObject {
         return new JsArray(list);
     }
 
+    // runs a parallel stream in the pool passed as the last argument, else in the common pool
+    static <T> T inPool(Object[] args, Supplier<T> task) {
+        if (args.length > 1 && args[args.length - 1] instanceof ForkJoinPool) {
+            return ((ForkJoinPool) args[args.length - 1]).submit(task::get).join();
+        }
+        return task.get();
+    }
+
+    // read-modify-write built-ins, a ConcurrentArray runs them as one step under its write lock
+    static Object mutate(JsArray array, Function<List<Object>, Object> function) {
+        if (array.list instanceof ConcurrentArray) {
+            return ((ConcurrentArray) array.list).update(function);
+        }
+        return function.apply(array.list);
+    }
+
     static Invokable toInvokable(Object[] args) {
         if (args.length == 0) {
             throw new RuntimeException("function expected");
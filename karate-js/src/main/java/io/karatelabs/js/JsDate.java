@@ -123,80 +123,64 @@ public class JsDate extends JsObject {
                     case "getTime":
                     case "valueOf":
                         return (Invokable) args -> {
-                            if (thisObject instanceof JsDate) {
-                                return ((JsDate) thisObject).getTime();
-                            }
                             return getTime();
                         };
                     case "toString":
                         return (Invokable) args -> {
-                            if (thisObject instanceof JsDate) {
-                                return (thisObject).toString();
-                            }
-                            return toString();
+                            return JsDate.this.toString();
                         };
                     case "toISOString":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.withZoneSameInstant(UTC).format(ISO_FORMATTER);
                         };
                     case "toUTCString":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             // Format: "Fri, 01 Jan 2021 00:00:00 GMT"
                             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'");
                             return dt.withZoneSameInstant(UTC).format(formatter);
                         };
                     case "getFullYear":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.getYear();
                         };
                     case "getMonth":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             // JavaScript months are 0-indexed
                             return dt.getMonthValue() - 1;
                         };
                     case "getDate":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.getDayOfMonth();
                         };
                     case "getDay":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             // Convert Java's 1-7 (Mon-Sun) to JavaScript's 0-6 (Sun-Sat)
                             return dt.getDayOfWeek().getValue() % 7;
                         };
                     case "getHours":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.getHour();
                         };
                     case "getMinutes":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.getMinute();
                         };
                     case "getSeconds":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.getSecond();
                         };
                     case "getMilliseconds":
                         return (Invokable) args -> {
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             return dt.get(ChronoField.MILLI_OF_SECOND);
                         };
                     // Setters
@@ -206,12 +190,9 @@ public class JsDate extends JsObject {
                                 return Undefined.NAN;
                             }
                             int day = ((Number) args[0]).intValue();
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.withDayOfMonth(day);
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setMonth":
@@ -221,12 +202,9 @@ public class JsDate extends JsObject {
                             }
                             // JavaScript months are 0-indexed
                             int month = ((Number) args[0]).intValue() + 1;
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.withMonth(month);
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setFullYear":
@@ -235,12 +213,9 @@ public class JsDate extends JsObject {
                                 return Undefined.NAN;
                             }
                             int year = ((Number) args[0]).intValue();
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.withYear(year);
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setHours":
@@ -249,8 +224,7 @@ public class JsDate extends JsObject {
                                 return Undefined.NAN;
                             }
                             int hours = ((Number) args[0]).intValue();
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.withHour(hours);
                             // Handle optional minute, second, and millisecond parameters
                             if (args.length > 1 && args[1] instanceof Number) {
@@ -262,9 +236,7 @@ public class JsDate extends JsObject {
                             if (args.length > 3 && args[3] instanceof Number) {
                                 newDt = newDt.with(ChronoField.MILLI_OF_SECOND, ((Number) args[3]).intValue());
                             }
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setMinutes":
@@ -273,8 +245,7 @@ public class JsDate extends JsObject {
                                 return Undefined.NAN;
                             }
                             int minutes = ((Number) args[0]).intValue();
-                            ZonedDateTime dt = thisObject instanceof JsDate
-                                    ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.withMinute(minutes);
                             // Handle optional second and millisecond parameters
                             if (args.length > 1 && args[1] instanceof Number) {
@@ -283,9 +254,7 @@ public class JsDate extends JsObject {
                             if (args.length > 2 && args[2] instanceof Number) {
                                 newDt = newDt.with(ChronoField.MILLI_OF_SECOND, ((Number) args[2]).intValue());
                             }
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setSeconds":
@@ -294,15 +263,13 @@ public class JsDate extends JsObject {
                                 return Undefined.NAN;
                             }
                             int seconds = ((Number) args[0]).intValue();
-                            ZonedDateTime dt = thisObject instanceof JsDate ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.withSecond(seconds);
                             // Handle optional millisecond parameter
                             if (args.length > 1 && args[1] instanceof Number) {
                                 newDt = newDt.with(ChronoField.MILLI_OF_SECOND, ((Number) args[1]).intValue());
                             }
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setMilliseconds":
@@ -311,11 +278,9 @@ public class JsDate extends JsObject {
                                 return Undefined.NAN;
                             }
                             int ms = ((Number) args[0]).intValue();
-                            ZonedDateTime dt = thisObject instanceof JsDate ? ((JsDate) thisObject).dateTime : dateTime;
+                            ZonedDateTime dt = dateTime;
                             ZonedDateTime newDt = dt.with(ChronoField.MILLI_OF_SECOND, ms);
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return newDt.toInstant().toEpochMilli();
                         };
                     case "setTime":
@@ -327,9 +292,7 @@ public class JsDate extends JsObject {
                             ZonedDateTime newDt = ZonedDateTime.ofInstant(
                                     Instant.ofEpochMilli(timestamp),
                                     ZoneId.systemDefault());
-                            if (thisObject instanceof JsDate) {
-                                ((JsDate) thisObject).setDateTime(newDt);
-                            }
+                            setDateTime(newDt);
                             return timestamp;
                         };
                 }
@@ -26,18 +26,48 @@ package io.karatelabs.js;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public abstract class JsFunction extends JsObject {
 
     private static final Object[] EMPTY = new Object[0];
 
     String name;
-    Context invokeContext;
+
+    public JsFunction() {
+
+    }
+
+    JsFunction(Map<String, Object> map) {
+        super(map);
+    }
 
     public void setName(String name) {
         this.name = name;
     }
 
+    // the receiver and calling context are passed in, so that a function object is never mutated by a call
+    // and can be invoked concurrently, caller is null when called from java
+    Object call(Context caller, Object thisObject, Object[] args, int argc, Object arg0, Object arg1, Object arg2) {
+        if (args == null) {
+            args = argc == 0 ? EMPTY : argc == 1 ? new Object[]{arg0} : argc == 2 ? new Object[]{arg0, arg1} : new Object[]{arg0, arg1, arg2};
+        }
+        return apply(thisObject, args);
+    }
+
+    // every function implements this, the receiver is passed in instead of being held by the function
+    public abstract Object apply(Object thisObject, Object[] args);
+
+    @Override
+    public Object invoke(Object... args) {
+        return apply(this, args);
+    }
+
+    // for repeated calls from java
+    public FunctionHandle prepare() {
+        return new FunctionHandle(this, null);
+    }
+
     @Override
     Prototype initPrototype() {
         Prototype wrapped = super.initPrototype();
@@ -48,8 +78,7 @@ public abstract class JsFunction extends JsObject {
                     case "call":
                         return (Invokable) args -> {
                             ShiftArgs shifted = new ShiftArgs(args);
-                            thisObject = shifted.thisObject;
-                            return invoke(shifted.args);
+                            return call(null, shifted.thisObject, shifted.args, shifted.args.length, null, null, null);
                         };
                     case "constructor":
                         return JsFunction.this;
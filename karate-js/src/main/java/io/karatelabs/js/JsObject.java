@@ -27,7 +27,6 @@ import java.util.*;
 
 public class JsObject implements ObjectLike, Invokable, Iterable<KeyValue> {
 
-    Object thisObject = this; // will be updated in Interpreter.evalFnCall()
     private final Map<String, Object> map;
 
     public JsObject(Map<String, Object> map) {
@@ -54,21 +53,21 @@ public class JsObject implements ObjectLike, Invokable, Iterable<KeyValue> {
             public Object getProperty(String propName) {
                 switch (propName) {
                     case "toString":
-                        return (Invokable) args -> Terms.TO_STRING(thisObject);
+                        return (Invokable) args -> Terms.TO_STRING(JsObject.this);
                     case "valueOf":
-                        return (Invokable) args -> thisObject;
+                        return (Invokable) args -> JsObject.this;
                     case "hasOwnProperty":
                         return (Invokable) args -> {
                             if (args.length == 0 || args[0] == null) {
                                 return false;
                             }
                             String prop = args[0].toString();
-                            if (thisObject instanceof ObjectLike) {
-                                ObjectLike objLike = (ObjectLike) thisObject;
+                            if (JsObject.this instanceof ObjectLike) {
+                                ObjectLike objLike = (ObjectLike) JsObject.this;
                                 Map<String, Object> map = objLike.toMap();
                                 return map != null && map.containsKey(prop);
-                            } else if (thisObject instanceof Map) {
-                                Map<String, Object> map = (Map<String, Object>) thisObject;
+                            } else if (JsObject.this instanceof Map) {
+                                Map<String, Object> map = (Map<String, Object>) JsObject.this;
                                 return map.containsKey(prop);
                             }
                             return false;
@@ -132,6 +131,12 @@ public class JsObject implements ObjectLike, Invokable, Iterable<KeyValue> {
                             }
                             return result;
                         };
+                    case "freeze":
+                        return (Invokable) args -> args.length == 0 ? Undefined.INSTANCE : freeze(args[0], false);
+                    case "deepFreeze":
+                        return (Invokable) args -> args.length == 0 ? Undefined.INSTANCE : freeze(args[0], true);
+                    case "isFrozen":
+                        return (Invokable) args -> args.length == 0 || isFrozen(args[0]);
                     case "is":
                         return (Invokable) args -> {
                             if (args.length < 2) {
@@ -145,6 +150,34 @@ public class JsObject implements ObjectLike, Invokable, Iterable<KeyValue> {
         };
     }
 
+    // returns an immutable copy (maps and lists, nested ones too if deep), the original is left as it was
+    @SuppressWarnings("unchecked")
+    static Object freeze(Object value, boolean deep) {
+        if (value instanceof FrozenMap || value instanceof FrozenList) {
+            return value;
+        }
+        if (value instanceof JsArray) {
+            return new FrozenList(((JsArray) value).toList(), deep);
+        }
+        if (value instanceof List) {
+            return new FrozenList((List<Object>) value, deep);
+        }
+        if (value != null && value.getClass() == JsObject.class) {
+            return new FrozenMap(((JsObject) value).toMap(), deep);
+        }
+        if (value instanceof Map) {
+            return new FrozenMap((Map<String, Object>) value, deep);
+        }
+        return value; // primitives are immutable, functions and java objects are left as they are
+    }
+
+    static boolean isFrozen(Object value) {
+        if (value instanceof FrozenMap || value instanceof FrozenList) {
+            return true;
+        }
+        return !(value instanceof Map || value instanceof List || value instanceof JsArray || (value != null && value.getClass() == JsObject.class));
+    }
+
     @Override
     public Object get(String name) {
         if (map.containsKey(name)) {
@@ -178,7 +211,7 @@ public class JsObject implements ObjectLike, Invokable, Iterable<KeyValue> {
 
     @Override
     public Iterator<KeyValue> iterator() {
-        return toIterable(thisObject).iterator();
+        return toIterable(this).iterator();
     }
 
     @SuppressWarnings("unchecked")
@@ -52,15 +52,9 @@ public class JsProperty {
                 name = node.getText();
                 break;
             case REF_DOT_EXPR:
-                Object temp;
-                try {
-                    // ignore any nested failures, the caller (interpreter) will check for java interop
-                    // before bubbling up the "undefined" as an exception
-                    temp = Interpreter.eval(node.children.get(0), context);
-                } catch (Exception e) {
-                    temp = Undefined.INSTANCE;
-                }
-                object = temp;
+                // a missing (nested) property is undefined, not an error, the caller (interpreter)
+                // will check for java interop before bubbling up the "undefined" as an exception
+                object = Interpreter.eval(node.children.get(0), context);
                 name = node.children.get(2).getText();
                 break;
             case REF_BRACKET_EXPR:
@@ -204,25 +198,52 @@ public class JsProperty {
                 return context.get(name);
             }
         }
-        try {
-            if (function) {
-                if (object instanceof Class) {
-                    return new JavaInvokable(name, new JavaClass((Class<?>) object));
-                } else {
-                    return new JavaInvokable(name, new JavaObject(object));
-                }
+        if (function) {
+            if (object instanceof Class) {
+                return new JavaInvokable(name, new JavaClass((Class<?>) object));
             } else {
+                return new JavaInvokable(name, new JavaObject(object));
+            }
+        }
+        if (object == null) {
+            return Undefined.INSTANCE;
+        }
+        return JavaBridge.convertIfArray(getJava(Engine.JAVA_BRIDGE, object, name));
+    }
+
+    // get() and getStatic() are what a host bridge overrides to filter or expose members, so they are honored
+    // (a failure is undefined), only the default bridge takes the probe short-cut that never throws for a miss
+    private static Object getJava(JavaBridge bridge, Object object, String name) {
+        if (OVERRIDES_GET.get(bridge.getClass())) {
+            try {
                 if (object instanceof Class) {
-                    return new JavaClass((Class<?>) object).read(name);
+                    return bridge.getStatic(((Class<?>) object).getName(), name);
                 } else {
-                    return new JavaObject(object).get(name);
+                    return bridge.get(object, name);
                 }
+            } catch (Exception e) {
+                return Undefined.INSTANCE;
             }
-        } catch (Exception e) {
-            return Undefined.INSTANCE;
+        }
+        if (object instanceof Class) {
+            return bridge.probeStatic((Class<?>) object, name);
+        } else {
+            return bridge.probe(object, name);
         }
     }
 
+    private static final ClassValue<Boolean> OVERRIDES_GET = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("get", Object.class, String.class).getDeclaringClass() != JavaBridge.class
+                        || type.getMethod("getStatic", String.class, String.class).getDeclaringClass() != JavaBridge.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        }
+    };
+
     private String getErrorMessageExtra() {
         String message = "";
         if (name != null) {
@@ -216,22 +216,14 @@ public class JsRegex extends JsObject {
                             if (args.length == 0 || args[0] == null) {
                                 return false;
                             }
-                            JsRegex regex = JsRegex.this;
-                            if (thisObject instanceof JsRegex) {
-                                regex = (JsRegex) thisObject;
-                            }
-                            return regex.test(args[0].toString());
+                            return test(args[0].toString());
                         };
                     case "exec":
                         return (Invokable) args -> {
                             if (args.length == 0 || args[0] == null) {
                                 return null;
                             }
-                            JsRegex regex = JsRegex.this;
-                            if (thisObject instanceof JsRegex) {
-                                regex = (JsRegex) thisObject;
-                            }
-                            return regex.exec(args[0].toString());
+                            return exec(args[0].toString());
                         };
                     case "source":
                         return pattern;
@@ -37,6 +37,14 @@ public class Node {
     public final Chunk chunk;
     public final List<Node> children = new ArrayList<>();
 
+    // operand types seen so far by the interpreter for math and comparison nodes
+    // a racy write is harmless, the fast paths always check the actual types
+    enum Feedback {
+        NONE, INT, DOUBLE, GENERIC
+    }
+
+    Feedback feedback = Feedback.NONE;
+
     public Node(Type type) {
         this.type = type;
         chunk = Chunk._NODE;
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class NodeFunction extends JsFunction {
 
@@ -38,39 +39,139 @@ public class NodeFunction extends JsFunction {
     final Node body; // STATEMENT or BLOCK (that may return expr)
     final List<String> argNames;
     final int argCount;
+    final boolean rest; // last arg is varargs
+    final String[] params; // arg names without the varargs prefix
     final Context originalContext;
 
+    private int usesArguments; // 0: not checked yet, 1: yes, 2: no
+
+    // frame from a previous call that did not escape into a closure, re-used to save allocations
+    private final AtomicReference<Context> spareContext = new AtomicReference<>();
+
     public NodeFunction(boolean arrow, List<String> argNames, Node body, Context context) {
         this.arrow = arrow;
         this.argNames = argNames;
         this.argCount = argNames.size();
+        this.rest = argCount > 0 && argNames.get(argCount - 1).charAt(0) == '.';
+        params = new String[argCount];
+        for (int i = 0; i < argCount; i++) {
+            String name = argNames.get(i);
+            params[i] = name.charAt(0) == '.' ? name.substring(1) : name;
+        }
         this.body = body;
         this.originalContext = context;
     }
 
+    // the same function closing over another scope, see Context.adopt(), properties are shared
+    private NodeFunction(NodeFunction source, Context context) {
+        super(source.toMap());
+        arrow = source.arrow;
+        argNames = source.argNames;
+        argCount = source.argCount;
+        rest = source.rest;
+        params = source.params;
+        body = source.body;
+        name = source.name;
+        usesArguments = source.usesArguments;
+        originalContext = context;
+    }
+
+    NodeFunction rebind(Context context) {
+        return new NodeFunction(this, context);
+    }
+
     @Override
     public Object invoke(Object... args) {
-        Context childContext = originalContext.merge(invokeContext);
-        if (!childContext.hasKey("arguments")) {
+        return call(null, this, args, args.length, null, null, null);
+    }
+
+    @Override
+    public Object apply(Object thisObject, Object[] args) {
+        return call(null, thisObject, args, args.length, null, null, null);
+    }
+
+    @Override
+    public Object invoke0() {
+        return call(null, this, null, 0, null, null, null);
+    }
+
+    @Override
+    public Object invoke1(Object arg0) {
+        return call(null, this, null, 1, arg0, null, null);
+    }
+
+    @Override
+    public Object invoke2(Object arg0, Object arg1) {
+        return call(null, this, null, 2, arg0, arg1, null);
+    }
+
+    @Override
+    public Object invoke3(Object arg0, Object arg1, Object arg2) {
+        return call(null, this, null, 3, arg0, arg1, arg2);
+    }
+
+    @Override
+    public FunctionHandle prepare() {
+        usesArguments(); // resolved up front, not on the first call
+        return new FunctionHandle(this, null);
+    }
+
+    private boolean usesArguments() {
+        if (usesArguments == 0) {
+            usesArguments = references(body, "arguments") ? 1 : 2;
+        }
+        return usesArguments == 1;
+    }
+
+    private static boolean references(Node node, String name) {
+        if (node.isChunk()) {
+            return node.chunk.token == Token.IDENT && name.equals(node.chunk.text);
+        }
+        for (Node child : node.children) {
+            if (references(child, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // when args is null, the (up to 3) args are in arg0, arg1 and arg2
+    // caller is null when called from java, in which case an error thrown by the function is re-thrown
+    @Override
+    Object call(Context caller, Object thisObject, Object[] args, int argc, Object arg0, Object arg1, Object arg2) {
+        boolean declareArguments = usesArguments();
+        if (args == null && (rest || declareArguments)) {
+            args = new Object[argc];
+            for (int i = 0; i < argc; i++) {
+                args[i] = i == 0 ? arg0 : i == 1 ? arg1 : arg2;
+            }
+        }
+        Context childContext = spareContext.getAndSet(null);
+        if (childContext == null) {
+            childContext = originalContext.merge(caller);
+        } else {
+            childContext.reset(caller);
+        }
+        if (declareArguments && !childContext.hasKey("arguments")) {
             childContext.declare("arguments", Arrays.asList(args));
         }
-        int actualArgCount = Math.min(args.length, argCount);
-        for (int i = 0; i < actualArgCount; i++) {
-            String name = argNames.get(i);
-            if (name.charAt(0) == '.') { // varargs hack
+        for (int i = 0; i < argCount; i++) {
+            if (rest && i == argCount - 1) { // varargs hack
                 List<Object> remainingArgs = new ArrayList<>();
-                for (int j = i; j < args.length; j++) {
+                for (int j = i; j < argc; j++) {
                     remainingArgs.add(args[j]);
                 }
-                childContext.declare(name.substring(1), remainingArgs);
+                childContext.declare(params[i], remainingArgs);
+            } else if (i < argc) {
+                Object arg;
+                if (args != null) {
+                    arg = args[i];
+                } else {
+                    arg = i == 0 ? arg0 : i == 1 ? arg1 : arg2;
+                }
+                childContext.declare(params[i], arg);
             } else {
-                childContext.declare(name, args[i]);
-            }
-        }
-        if (args.length < argCount) {
-            for (int i = args.length; i < argCount; i++) {
-                String name = argNames.get(i);
-                childContext.declare(name, Undefined.INSTANCE);
+                childContext.declare(params[i], Undefined.INSTANCE);
             }
         }
         if (!arrow) {
@@ -84,10 +185,21 @@ public class NodeFunction extends JsFunction {
             logger.trace("<< {} | {}", result, this);
         }
         // exit function, only propagate error
-        if (invokeContext != null && childContext.isError()) {
-            invokeContext.updateFrom(childContext);
+        Object error = childContext.isError() ? childContext.getErrorThrown() : null;
+        if (error != null && caller != null) {
+            caller.updateFrom(childContext);
+        }
+        if (body.type == Type.BLOCK) {
+            result = childContext.getReturnValue();
+        }
+        if (!childContext.isCaptured()) {
+            childContext.reset(null);
+            spareContext.set(childContext);
+        }
+        if (error != null && caller == null) {
+            throw new JsException(error);
         }
-        return body.type == Type.BLOCK ? childContext.getReturnValue() : result;
+        return result;
     }
 
     @Override
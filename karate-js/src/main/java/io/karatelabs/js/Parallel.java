@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// the "Parallel" global: Parallel.all([() => a(), () => b()]) runs the functions concurrently and returns their
+// results in order, Parallel.submit(fn) returns a task with join(), cancel() and done
+// an error thrown by a function is re-thrown (as a js error) on join, to use a different executor bind
+// new Parallel(executor) as a root binding called "Parallel"
+public class Parallel implements SimpleObject {
+
+    private static volatile Parallel defaultInstance;
+    private static volatile ExecutorService defaultExecutor;
+
+    static Parallel getDefault() {
+        Parallel result = defaultInstance;
+        if (result == null) {
+            result = new Parallel(defaultExecutor());
+            defaultInstance = result;
+        }
+        return result;
+    }
+
+    // shared by Parallel and Engine.evalAsync(), virtual threads when running on java 21+
+    // else a cached pool of daemon threads
+    static ExecutorService defaultExecutor() {
+        ExecutorService result = defaultExecutor;
+        if (result == null) {
+            synchronized (Parallel.class) {
+                result = defaultExecutor;
+                if (result == null) {
+                    result = createExecutor();
+                    defaultExecutor = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "karate-js-parallel");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private final Executor executor;
+
+    public Parallel(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Object get(String name) {
+        switch (name) {
+            case "all":
+                return (Invokable) args -> all(toFunctions(args));
+            case "submit":
+                return (Invokable) args -> submit(JsArray.toInvokable(args));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Invokable> toFunctions(Object[] args) {
+        List<Object> items;
+        if (args.length == 1 && args[0] instanceof List) {
+            items = (List<Object>) args[0];
+        } else {
+            items = List.of(args);
+        }
+        List<Invokable> result = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (!(item instanceof Invokable)) {
+                throw new RuntimeException("function expected: " + item);
+            }
+            result.add((Invokable) item);
+        }
+        return result;
+    }
+
+    // cancelling the task stops the function at its next statement, see AsyncEval
+    public Task submit(Invokable function) {
+        return new Task(AsyncEval.submit(executor, function::invoke0));
+    }
+
+    // waits for all, as soon as one fails the others are cancelled and its error is thrown
+    public List<Object> all(List<Invokable> functions) {
+        List<Task> tasks = new ArrayList<>(functions.size());
+        for (Invokable function : functions) {
+            tasks.add(submit(function));
+        }
+        CompletableFuture<Object> failed = new CompletableFuture<>();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = tasks.get(i).future.whenComplete((result, e) -> {
+                if (e != null) {
+                    failed.completeExceptionally(e);
+                }
+            });
+        }
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(futures), failed).join();
+        } catch (CompletionException e) {
+            for (Task task : tasks) {
+                task.future.cancel(true);
+            }
+            throw Task.unwrap(e);
+        }
+        List<Object> results = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    public static class Task implements SimpleObject {
+
+        final CompletableFuture<Object> future;
+
+        Task(CompletableFuture<Object> future) {
+            this.future = future;
+        }
+
+        public Object join() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            } catch (CancellationException e) {
+                throw new RuntimeException("task was cancelled");
+            }
+        }
+
+        static RuntimeException unwrap(CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return e;
+        }
+
+        @Override
+        public Object get(String name) {
+            switch (name) {
+                case "join":
+                    return (Invokable) args -> join();
+                case "cancel":
+                    return (Invokable) args -> future.cancel(true);
+                case "done":
+                    return future.isDone();
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// a store that many engines (on many threads) can share, e.g. bound to each one with setRootBinding("shared", shared)
+// reads never block (a value still being computed by computeIfAbsent() reads as absent)
+// and increment(), compareAndSet() and computeIfAbsent() are atomic
+// the names of these functions take precedence over keys of the same name for dot access
+public class Shared implements ObjectLike {
+
+    private static final Object NULL = new Object(); // ConcurrentHashMap does not allow null values
+
+    // placeholder while a computeIfAbsent() function runs, so that it runs only once per key
+    private static class Pending {
+
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        final Thread owner = Thread.currentThread();
+
+    }
+
+    private final ConcurrentHashMap<String, Object> map = new ConcurrentHashMap<>();
+
+    private static Object mask(Object value) {
+        return value == null ? NULL : value;
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    // for the atomic functions, which wait for a computeIfAbsent() in progress on another thread
+    private static Object await(String name, Object value) {
+        if (value instanceof Pending) {
+            Pending pending = (Pending) value;
+            if (pending.owner == Thread.currentThread()) {
+                throw new RuntimeException("computeIfAbsent() for '" + name + "' is already running on this thread");
+            }
+            value = pending.future.join();
+        }
+        return unmask(value);
+    }
+
+    private static String key(Object[] args, String function) {
+        if (args.length == 0 || !(args[0] instanceof CharSequence)) {
+            throw new RuntimeException(function + "() expects a key (string) as the first argument");
+        }
+        return args[0].toString();
+    }
+
+    @Override
+    public Object get(String name) {
+        switch (name) {
+            case "increment":
+                return (Invokable) args -> increment(key(args, name), args.length > 1 ? Terms.toNumber(args[1]) : 1);
+            case "compareAndSet":
+                return (Invokable) args -> {
+                    if (args.length < 3) {
+                        throw new RuntimeException("compareAndSet() expects a key, the expected value and the new value");
+                    }
+                    return compareAndSet(key(args, name), args[1], args[2]);
+                };
+            case "computeIfAbsent":
+                return (Invokable) args -> {
+                    String key = key(args, name);
+                    if (args.length < 2 || !(args[1] instanceof Invokable)) {
+                        throw new RuntimeException("computeIfAbsent() expects a function as the second argument");
+                    }
+                    return computeIfAbsent(key, (Invokable) args[1]);
+                };
+        }
+        Object value = map.get(name);
+        return value == null || value instanceof Pending ? Undefined.INSTANCE : unmask(value);
+    }
+
+    @Override
+    public void put(String name, Object value) {
+        map.put(name, mask(value));
+    }
+
+    @Override
+    public void remove(String name) {
+        map.remove(name);
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>(map.size());
+        map.forEach((k, v) -> {
+            if (!(v instanceof Pending)) {
+                result.put(k, unmask(v));
+            }
+        });
+        return result;
+    }
+
+    public Number increment(String name, Number delta) {
+        while (true) {
+            Object current = map.get(name);
+            if (current instanceof Pending) { // wait for the computed value, then count from it
+                await(name, current);
+                continue;
+            }
+            Number base = current == null || current == NULL ? 0 : Terms.toNumber(current);
+            Object result = Terms.narrow(base.doubleValue() + delta.doubleValue());
+            if (current == null ? map.putIfAbsent(name, result) == null : map.replace(name, current, result)) {
+                return (Number) result;
+            }
+        }
+    }
+
+    // expected null or undefined means absent
+    public boolean compareAndSet(String name, Object expected, Object value) {
+        boolean absent = expected == null || expected == Undefined.INSTANCE;
+        while (true) {
+            Object current = map.get(name);
+            if (current == null) {
+                if (!absent) {
+                    return false;
+                }
+                if (map.putIfAbsent(name, mask(value)) == null) {
+                    return true;
+                }
+                continue; // lost the race, look again
+            }
+            Object currentValue = await(name, current);
+            if (absent ? currentValue != null : !Terms.eq(currentValue, expected, true)) {
+                return false;
+            }
+            if (map.replace(name, current, mask(value))) {
+                return true;
+            }
+        }
+    }
+
+    // the function runs at most once per key, concurrent callers wait for its result
+    public Object computeIfAbsent(String name, Invokable function) {
+        Object current = map.get(name);
+        if (current != null) {
+            return await(name, current);
+        }
+        Pending pending = new Pending();
+        current = map.putIfAbsent(name, pending);
+        if (current != null) {
+            return await(name, current);
+        }
+        Object value;
+        try {
+            value = function.invoke1(name);
+        } catch (RuntimeException | Error e) {
+            map.remove(name, pending);
+            pending.future.completeExceptionally(e);
+            throw e;
+        }
+        map.replace(name, pending, mask(value));
+        pending.future.complete(mask(value));
+        return value;
+    }
+
+}
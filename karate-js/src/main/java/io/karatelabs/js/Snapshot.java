@@ -0,0 +1,40 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+// the frozen global state of an engine, e.g. after evaluating a library once, see Engine.snapshot()
+// engines forked from it share the bindings (and function objects) and shadow any variable they assign
+// a function held in an object keeps the scope it was declared in, so a fork should call it from a script, not from java
+// maps and lists (js objects and arrays) held in variables are deep frozen in the snapshot (the source engine keeps its
+// own), so a fork that wants to change one assigns a new value, thread-safe ones (e.g. ConcurrentObject) and other java
+// objects are shared as-is
+public final class Snapshot {
+
+    final Context context;
+
+    Snapshot(Context context) {
+        this.context = context;
+    }
+
+}
@@ -220,10 +220,10 @@ public class Terms {
         if (d % 1 != 0) {
             return d;
         }
-        if (d <= Integer.MAX_VALUE) {
+        if (d <= Integer.MAX_VALUE && d >= Integer.MIN_VALUE) {
             return (int) d;
         }
-        if (d <= Long.MAX_VALUE) {
+        if (d <= Long.MAX_VALUE && d >= Long.MIN_VALUE) {
             return (long) d;
         }
         return d;
@@ -0,0 +1,553 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 Karate Labs Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.karatelabs.js;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// converts js values (maps, lists, numbers, JsObject and friends) to java types: primitives, strings, enums,
+// arrays, collections, beans and records, and java objects to plain js values in the other direction
+// the conversion plan for a class is built once (on the same bean metadata as JavaBridge) and cached
+public class ValueMapper {
+
+    private ValueMapper() {
+        // static only
+    }
+
+    @FunctionalInterface
+    interface Plan {
+
+        Object map(Object value);
+
+    }
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+        @Override
+        protected Plan computeValue(Class<?> type) {
+            return plan(type);
+        }
+    };
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    @SuppressWarnings("unchecked")
+    public static <T> T toJava(Object value, Class<T> type) {
+        return (T) PLANS.get(type).map(value);
+    }
+
+    // for generic types such as List<Foo>, e.g. from a TypeToken style holder
+    public static Object toJava(Object value, Type type) {
+        return cached(type).map(value);
+    }
+
+    static final int MAX_GENERIC_PLANS = 1024;
+
+    // plans for generic types, which can refer to classes from any classloader so the cache is kept bounded
+    private static final Map<Type, Plan> GENERIC_PLANS = new ConcurrentHashMap<>();
+
+    private static Plan cached(Type type) {
+        if (type instanceof Class) {
+            return PLANS.get((Class<?>) type);
+        }
+        Plan plan = GENERIC_PLANS.get(type);
+        if (plan == null) {
+            plan = plan(type);
+            if (GENERIC_PLANS.size() >= MAX_GENERIC_PLANS) { // crude, see ClassCache
+                GENERIC_PLANS.clear();
+            }
+            GENERIC_PLANS.put(type, plan);
+        }
+        return plan;
+    }
+
+    // java to js, beans become maps and arrays and collections become lists, all the way down
+    @SuppressWarnings("unchecked")
+    public static Object toJs(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof JsObject || value instanceof Invokable) {
+            return value;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            Map<String, Object> result = new LinkedHashMap<>(map.size());
+            map.forEach((k, v) -> result.put(k, toJs(v)));
+            return result;
+        }
+        if (value instanceof Collection) {
+            Collection<Object> collection = (Collection<Object>) value;
+            List<Object> result = new ArrayList<>(collection.size());
+            for (Object o : collection) {
+                result.add(toJs(o));
+            }
+            return result;
+        }
+        if (value.getClass().isArray()) {
+            List<Object> result = new ArrayList<>(ArrayView.of(value));
+            result.replaceAll(ValueMapper::toJs);
+            return result;
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof Character) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return new JsDate(((Date) value).getTime());
+        }
+        Map<String, JavaMembers.Accessor> properties = JavaMembers.of(value.getClass()).getProperties();
+        if (properties.isEmpty()) { // leave it as a java object
+            return value;
+        }
+        Map<String, Object> result = new LinkedHashMap<>(properties.size());
+        properties.forEach((k, accessor) -> result.put(k, toJs(accessor.get(value))));
+        return result;
+    }
+
+    // js wrapper types to their plain java form, not recursive
+    private static Object unwrap(Object value) {
+        if (value == Undefined.INSTANCE) {
+            return null;
+        }
+        if (value instanceof JsObject && !(value instanceof JsFunction)) {
+            if (value instanceof JsString) {
+                return value.toString();
+            }
+            if (value instanceof JsArray) {
+                return ((JsArray) value).toList();
+            }
+            if (value instanceof JsDate) {
+                return new Date(((JsDate) value).getTime());
+            }
+            return ((JsObject) value).toMap();
+        }
+        return value;
+    }
+
+    private static Plan plan(Type type) {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) pt.getRawType();
+            Type[] args = pt.getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(raw)) {
+                return collectionPlan(raw, args[0]);
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                return mapPlan(args[0], args[1]);
+            }
+            return PLANS.get(raw);
+        }
+        if (type instanceof GenericArrayType) {
+            Type componentType = ((GenericArrayType) type).getGenericComponentType();
+            return arrayPlan(rawType(componentType), lazy(componentType));
+        }
+        if (!(type instanceof Class)) { // type variable or wildcard
+            return plan(rawType(type));
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz == Object.class) {
+            return ValueMapper::toPlain;
+        }
+        if (clazz == String.class || clazz == CharSequence.class) {
+            return value -> {
+                value = unwrap(value);
+                return value == null ? null : value.toString();
+            };
+        }
+        if (clazz == boolean.class || clazz == Boolean.class) {
+            boolean primitive = clazz.isPrimitive();
+            return value -> {
+                value = unwrap(value);
+                return value == null && !primitive ? null : Terms.isTruthy(value);
+            };
+        }
+        if (clazz == char.class || clazz == Character.class) {
+            boolean primitive = clazz.isPrimitive();
+            return value -> {
+                value = unwrap(value);
+                if (value == null) {
+                    return primitive ? (char) 0 : null;
+                }
+                return value instanceof Character ? value : value.toString().charAt(0);
+            };
+        }
+        if (JavaConverter.rank(clazz) != -1) {
+            Class<?> primitiveType = clazz.isPrimitive() ? clazz : JavaConverter.primitive(clazz);
+            boolean primitive = clazz.isPrimitive();
+            return value -> {
+                value = unwrap(value);
+                if (value == null) {
+                    return primitive ? JavaConverter.toNumber(primitiveType, 0) : null;
+                }
+                Number number = value instanceof Number ? (Number) value : Terms.toNumber(value);
+                if (!(value instanceof Number) && Double.isNaN(number.doubleValue())) { // e.g. 'abc'
+                    throw new RuntimeException("cannot convert '" + value + "' to " + clazz.getName());
+                }
+                return JavaConverter.toExactNumber(primitiveType, number);
+            };
+        }
+        if (clazz == Number.class) {
+            return value -> {
+                value = unwrap(value);
+                return value == null ? null : Terms.toNumber(value);
+            };
+        }
+        if (clazz == BigDecimal.class || clazz == BigInteger.class) {
+            return value -> {
+                value = unwrap(value);
+                if (value == null || clazz.isInstance(value)) {
+                    return value;
+                }
+                BigDecimal number = new BigDecimal(value instanceof Number ? value.toString() : Terms.toNumber(value).toString());
+                return clazz == BigInteger.class ? number.toBigInteger() : number;
+            };
+        }
+        if (clazz.isEnum()) {
+            return value -> {
+                value = unwrap(value);
+                return value == null || clazz.isInstance(value) ? value : toEnum(clazz, value.toString());
+            };
+        }
+        if (clazz == Date.class) {
+            return value -> {
+                value = unwrap(value);
+                if (value == null || value instanceof Date) {
+                    return value;
+                }
+                if (value instanceof Number) {
+                    return new Date(((Number) value).longValue());
+                }
+                throw new RuntimeException("cannot convert " + value.getClass().getName() + " to java.util.Date");
+            };
+        }
+        if (clazz.isArray()) {
+            return arrayPlan(clazz.getComponentType(), PLANS.get(clazz.getComponentType()));
+        }
+        if (Collection.class.isAssignableFrom(clazz)) {
+            return collectionPlan(clazz, Object.class);
+        }
+        if (Map.class.isAssignableFrom(clazz)) {
+            return mapPlan(Object.class, Object.class);
+        }
+        if (clazz.getSuperclass() != null && "java.lang.Record".equals(clazz.getSuperclass().getName())) {
+            return new RecordPlan(clazz);
+        }
+        if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers()) || clazz.isPrimitive()) {
+            return value -> {
+                value = unwrap(value);
+                if (value == null || clazz.isInstance(value)) {
+                    return value;
+                }
+                throw new RuntimeException("cannot convert " + value.getClass().getName() + " to " + clazz.getName());
+            };
+        }
+        return new BeanPlan(clazz);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> type, String name) {
+        return Enum.valueOf((Class<Enum>) type, name);
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof WildcardType) {
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    // resolved on first use, so that a type can refer to itself (e.g. a tree node with child nodes)
+    private static Plan lazy(Type type) {
+        return new Plan() {
+            private Plan plan;
+
+            @Override
+            public Object map(Object value) {
+                if (plan == null) {
+                    plan = cached(type);
+                }
+                return plan.map(value);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toPlain(Object value) {
+        value = unwrap(value);
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            Map<String, Object> result = new LinkedHashMap<>(map.size());
+            map.forEach((k, v) -> result.put(k, toPlain(v)));
+            return result;
+        }
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            List<Object> result = new ArrayList<>(list.size());
+            for (Object o : list) {
+                result.add(toPlain(o));
+            }
+            return result;
+        }
+        return value;
+    }
+
+    private static Plan arrayPlan(Class<?> componentType, Plan componentPlan) {
+        return value -> {
+            value = unwrap(value);
+            if (value == null || !(value instanceof Collection)) {
+                return value;
+            }
+            Collection<?> collection = (Collection<?>) value;
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object o : collection) {
+                list.add(componentPlan.map(o));
+            }
+            return JavaConverter.toArray(list, componentType);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Plan collectionPlan(Class<?> type, Type elementType) {
+        Plan elementPlan = lazy(elementType);
+        boolean set = Set.class.isAssignableFrom(type);
+        return value -> {
+            value = unwrap(value);
+            if (value == null) {
+                return null;
+            }
+            Collection<Object> source = value instanceof Collection ? (Collection<Object>) value : Collections.singletonList(value);
+            Collection<Object> result = set ? new LinkedHashSet<>(source.size()) : new ArrayList<>(source.size());
+            for (Object o : source) {
+                result.add(elementPlan.map(o));
+            }
+            return result;
+        };
+    }
+
+    // keys are converted too, e.g. the (string) keys of a js object to the integers of a Map<Integer, String>
+    private static Plan mapPlan(Type keyType, Type valueType) {
+        Plan keyPlan = lazy(keyType);
+        Plan valuePlan = lazy(valueType);
+        return value -> {
+            value = unwrap(value);
+            if (!(value instanceof Map)) {
+                return value;
+            }
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> result = new LinkedHashMap<>(map.size());
+            map.forEach((k, v) -> result.put(keyPlan.map(k), valuePlan.map(v)));
+            return result;
+        };
+    }
+
+    // no-arg constructor, then setters or public fields for the keys present in the source map
+    static class BeanPlan implements Plan {
+
+        final Class<?> type;
+        final Constructor<?> constructor;
+        final Map<String, Property> properties = new HashMap<>();
+
+        BeanPlan(Class<?> type) {
+            this.type = type;
+            Constructor<?> found;
+            try {
+                found = type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                found = null;
+            }
+            constructor = found;
+            JavaMembers members = JavaMembers.of(type);
+            members.getSetters().forEach((name, method) -> properties.put(name, new Property(method)));
+            for (Field field : type.getFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                    properties.putIfAbsent(field.getName(), new Property(field));
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object map(Object value) {
+            value = unwrap(value);
+            if (value == null || type.isInstance(value)) {
+                return value;
+            }
+            if (!(value instanceof Map)) {
+                throw new RuntimeException("cannot convert " + value.getClass().getName() + " to " + type.getName());
+            }
+            if (constructor == null) {
+                throw new RuntimeException("no public no-arg constructor: " + type.getName());
+            }
+            Object bean;
+            try {
+                bean = constructor.newInstance();
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            Map<String, Object> map = (Map<String, Object>) value;
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                Property property = properties.get(entry.getKey());
+                if (property != null) {
+                    property.set(bean, property.plan.map(entry.getValue()));
+                }
+            }
+            return bean;
+        }
+
+    }
+
+    static class Property {
+
+        final Plan plan;
+        final Member member;
+        private final MethodHandle setter; // (Object, Object)void
+
+        Property(Method method) {
+            member = method;
+            plan = lazy(method.getGenericParameterTypes()[0]);
+            MethodHandle mh;
+            try {
+                mh = LOOKUP.unreflect(method);
+                mh = mh.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                mh = null;
+            }
+            setter = mh;
+        }
+
+        Property(Field field) {
+            member = field;
+            plan = lazy(field.getGenericType());
+            MethodHandle mh;
+            try {
+                mh = LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                mh = null;
+            }
+            setter = mh;
+        }
+
+        void set(Object target, Object value) {
+            try {
+                if (setter != null) {
+                    setter.invokeExact(target, value);
+                } else if (member instanceof Method) {
+                    ((Method) member).invoke(target, value);
+                } else {
+                    ((Field) member).set(target, value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+    }
+
+    // canonical constructor with the record components, looked up reflectively to stay on the java 11 api
+    static class RecordPlan implements Plan {
+
+        final Class<?> type;
+        final String[] names;
+        final Plan[] plans;
+        final Constructor<?> constructor;
+        final boolean accessible;
+
+        RecordPlan(Class<?> type) {
+            this.type = type;
+            try {
+                Object[] components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+                names = new String[components.length];
+                plans = new Plan[components.length];
+                Class<?>[] types = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    Object component = components[i];
+                    Class<?> componentClass = component.getClass();
+                    names[i] = (String) componentClass.getMethod("getName").invoke(component);
+                    types[i] = (Class<?>) componentClass.getMethod("getType").invoke(component);
+                    plans[i] = lazy((Type) componentClass.getMethod("getGenericType").invoke(component));
+                }
+                constructor = type.getDeclaredConstructor(types);
+            } catch (Exception e) {
+                throw new RuntimeException("cannot introspect record: " + type.getName(), e);
+            }
+            // false for e.g. a non-public record in a module that is not open to this one
+            accessible = constructor.trySetAccessible();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object map(Object value) {
+            value = unwrap(value);
+            if (value == null || type.isInstance(value)) {
+                return value;
+            }
+            if (!(value instanceof Map)) {
+                throw new RuntimeException("cannot convert " + value.getClass().getName() + " to " + type.getName());
+            }
+            if (!accessible) {
+                throw new RuntimeException("record constructor is not accessible: " + type.getName());
+            }
+            Map<String, Object> map = (Map<String, Object>) value;
+            Object[] args = new Object[names.length];
+            for (int i = 0; i < names.length; i++) {
+                args[i] = plans[i].map(map.get(names[i]));
+            }
+            try {
+                return constructor.newInstance(args);
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+    }
+
+}
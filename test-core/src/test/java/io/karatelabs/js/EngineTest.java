@@ -1,12 +1,31 @@
 package io.karatelabs.js;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.tools.ToolProvider;
 import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -122,4 +141,359 @@ class EngineTest {
         assertEquals("parent", engine.eval("foo"));
     }
 
+    public static class Order {
+
+        public String id;
+        public List<DemoPojo> items;
+        public Map<String, Integer> counts;
+        public int[] codes;
+        public Integer total;
+        public Map<Integer, String> names;
+
+    }
+
+    @Test
+    void testEvalTyped() {
+        Engine engine = new Engine();
+        assertEquals(3, engine.eval("1 + 2", int.class));
+        assertEquals(3L, engine.eval("1 + 2", Long.class));
+        assertEquals("ab", engine.eval("'a' + 'b'", String.class));
+        Order order = engine.eval("({ id: 'x', items: [{ stringValue: 'foo', intValue: 5.0 }], counts: { a: 1 }, codes: [1, 2] })", Order.class);
+        assertEquals("x", order.id);
+        assertEquals("foo", order.items.get(0).getStringValue());
+        assertEquals(5, order.items.get(0).getIntValue());
+        assertEquals(Map.of("a", 1), order.counts);
+        assertArrayEquals(new int[]{1, 2}, order.codes);
+        engine.set("order", ValueMapper.toJs(order));
+        assertEquals("foo", engine.eval("order.items[0].stringValue"));
+        assertEquals(2, engine.eval("order.codes.length"));
+        DemoPojo pojo = engine.get("order", Order.class).items.get(0);
+        assertEquals(5, pojo.getIntValue());
+        order = engine.eval("({ total: null, names: { '1': 'a' } })", Order.class);
+        assertNull(order.total);
+        assertEquals(Map.of(1, "a"), order.names);
+        assertNull(engine.eval("undefined", Integer.class));
+        assertEquals(0, engine.eval("null", int.class));
+        assertEquals(12, engine.eval("'12'", int.class));
+        assertTrue(Double.isNaN(ValueMapper.toJava(Double.NaN, double.class)));
+        assertThrows(RuntimeException.class, () -> engine.eval("'abc'", int.class));
+        assertThrows(RuntimeException.class, () -> engine.eval("'abc'", Double.class));
+        assertThrows(RuntimeException.class, () -> engine.eval("1.5", int.class));
+        assertThrows(RuntimeException.class, () -> engine.eval("({ names: { x: 'a' } })", Order.class));
+    }
+
+    @Test
+    void testEvalTypedGenericAndDate() throws Exception {
+        Engine engine = new Engine();
+        java.lang.reflect.Type type = Order.class.getField("items").getGenericType();
+        Object items = engine.eval("[{ stringValue: 'foo' }]");
+        for (int i = 0; i < 2; i++) { // the second time from the cached plan
+            List<?> list = (List<?>) ValueMapper.toJava(items, type);
+            assertEquals("foo", ((DemoPojo) list.get(0)).getStringValue());
+        }
+        assertEquals(new Date(1000), engine.eval("1000", Date.class));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> engine.eval("'yesterday'", Date.class));
+        assertTrue(e.getMessage().contains("to java.util.Date"));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_16)
+    void testEvalRecord() throws Exception {
+        // compiled at runtime, the test sources are java 11
+        Path dir = Files.createTempDirectory("records");
+        Path source = dir.resolve("Point.java");
+        Files.write(source, ("public record Point(String name, int x, java.util.List<Integer> tags) {}\n"
+                + "record Hidden(int value) {}").getBytes());
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", dir.toString(), source.toString()));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()})) {
+            Engine engine = new Engine();
+            Class<?> point = loader.loadClass("Point");
+            Object result = engine.eval("({ name: 'a', x: 1.0, tags: [1, 2] })", point);
+            assertEquals("a", point.getMethod("name").invoke(result));
+            assertEquals(1, point.getMethod("x").invoke(result));
+            assertEquals(List.of(1, 2), point.getMethod("tags").invoke(result));
+            Class<?> hidden = loader.loadClass("Hidden");
+            Object value = engine.eval("({ value: 5 })", hidden);
+            Method accessor = hidden.getDeclaredMethod("value");
+            accessor.setAccessible(true);
+            assertEquals(5, accessor.invoke(value));
+        }
+    }
+
+    @Test
+    void testFunctionHandle() throws Exception {
+        Engine engine = new Engine();
+        engine.eval("var limit = 10; function valid(x) { if (x < 0) throw 'negative'; return x < limit }; function self() { return this.name }");
+        FunctionHandle valid = engine.getFunction("valid").prepare();
+        assertEquals(true, valid.call(5));
+        assertEquals(false, valid.call(15));
+        Exception e = assertThrows(RuntimeException.class, () -> valid.call(-1));
+        assertEquals("negative", e.getMessage());
+        FunctionHandle self = engine.getFunction("self").prepare().withThis(Map.of("name", "foo"));
+        assertEquals("foo", self.call());
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (Boolean.TRUE.equals(valid.call(j % 20))) {
+                        count.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, count.get());
+    }
+
+    @Test
+    void testSnapshot() throws Exception {
+        Engine engine = new Engine();
+        engine.eval("var count = 0; var prefix = 'x'; function next() { count++; return prefix + count }");
+        Snapshot snapshot = engine.snapshot();
+        Engine a = Engine.fromSnapshot(snapshot);
+        assertEquals("x1", a.eval("next()"));
+        assertEquals("x2", a.eval("next()"));
+        a.eval("prefix = 'a'");
+        assertEquals("a3", a.eval("next()"));
+        Engine b = Engine.fromSnapshot(snapshot);
+        assertEquals("x1", b.eval("next()"));
+        assertEquals(0, engine.eval("count"));
+        assertEquals("x1", engine.eval("next()"));
+        assertEquals("x1", Engine.fromSnapshot(snapshot).copy().eval("next()"));
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger count = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    Engine fork = Engine.fromSnapshot(snapshot);
+                    if ("x2".equals(fork.eval("next(); next()"))) {
+                        count.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400, count.get());
+    }
+
+    @Test
+    void testSnapshotFunctionAssigns() {
+        Engine engine = new Engine();
+        engine.eval("var total = 0; var log = ''; function add(n) { total += n; log += n; return total }");
+        Snapshot snapshot = engine.snapshot();
+        Engine fork = Engine.fromSnapshot(snapshot);
+        FunctionHandle add = fork.getFunction("add").prepare();
+        assertEquals(5, add.call(5)); // no caller, the frame is recycled after each call
+        assertEquals(10, add.call(5));
+        assertEquals(10, fork.eval("total"));
+        assertEquals(13, fork.eval("[1, 2].forEach(add); total"));
+        assertEquals("5512", fork.eval("log"));
+        assertEquals(List.of(14), fork.eval("Parallel.all([() => add(1)])"));
+        assertEquals(14, fork.eval("total"));
+        assertEquals(0, engine.eval("total"));
+        assertEquals(0, Engine.fromSnapshot(snapshot).eval("total"));
+    }
+
+    @Test
+    void testSnapshotObjectsFrozen() throws Exception {
+        Engine template = new Engine();
+        template.eval("var cfg = { name: 'a', items: [1] }");
+        Snapshot snapshot = template.snapshot();
+        Engine first = Engine.fromSnapshot(snapshot);
+        Engine second = Engine.fromSnapshot(snapshot);
+        assertThrows(RuntimeException.class, () -> first.eval("cfg.items.push(2)"));
+        assertThrows(RuntimeException.class, () -> second.eval("cfg.name = 'b'"));
+        assertEquals(1, second.eval("cfg.items.length"));
+        first.eval("cfg = { name: 'b', items: cfg.items.concat([2]) }");
+        assertEquals(2, first.eval("cfg.items.length"));
+        assertEquals(1, second.eval("cfg.items.length"));
+        assertEquals("a", second.eval("cfg.name"));
+        template.eval("cfg.items.push(3)"); // the source engine keeps its own objects
+        assertEquals(2, template.eval("cfg.items.length"));
+        assertEquals(1, Engine.fromSnapshot(snapshot).eval("cfg.items.length"));
+        assertEquals(2, template.copy().eval("cfg.items.length"));
+    }
+
+    @Test
+    void testCopy() {
+        Engine engine = new Engine();
+        engine.setRootBinding("root", "r");
+        engine.eval("var a = 1; var b = { c: 2 }; var s = 'x'; function getA() { return a }");
+        Context context = engine.context;
+        int statements = context.getStatementCount();
+        Engine copy = engine.copy();
+        assertSame(context, engine.context); // the source engine is left as it was
+        assertEquals(statements, engine.context.getStatementCount());
+        copy.eval("a = 10");
+        engine.eval("a = 20; s += 'y'");
+        assertEquals(10, copy.eval("a"));
+        assertEquals(20, engine.eval("a"));
+        assertEquals("x", copy.eval("s"));
+        assertEquals("xy", engine.eval("s"));
+        assertEquals(10, copy.getFunction("getA").invoke0()); // called from java, reads the copy
+        assertEquals(20, engine.getFunction("getA").invoke0());
+        assertEquals(List.of("a", "b", "s", "getA"), new ArrayList<>(copy.context.snapshotBindings().keySet()));
+        assertEquals(10, copy.context.snapshotBindings().get("a"));
+        assertEquals(20, engine.context.snapshotBindings().get("a"));
+        assertThrows(UnsupportedOperationException.class, () -> copy.context.snapshotBindings().put("a", 1));
+        // the live bindings of the fork hold only what it declared or assigned since
+        Map<String, Object> live = copy.context.getBindings();
+        live.put("d", 4);
+        assertEquals(4, copy.eval("d"));
+        live.remove("d");
+        assertEquals("undefined", copy.eval("typeof d"));
+        assertEquals("xy", engine.context.getBindings().get("s"));
+        assertEquals("r", copy.eval("root"));
+        assertEquals(2, copy.eval("b.c"));
+        Engine copy2 = copy.copy();
+        assertEquals(10, copy2.eval("a"));
+        for (int i = 0; i < 1000; i++) { // copies without writes in between do not deepen the chain
+            copy2 = copy2.copy();
+        }
+        assertEquals(10, copy2.eval("a"));
+        for (int i = 0; i < 100; i++) { // and with writes, the levels get merged
+            copy2 = copy2.copy();
+            copy2.eval("var v" + i + " = " + i + "; a = " + i);
+        }
+        assertEquals(99, copy2.eval("a"));
+        assertEquals(50, copy2.eval("v50"));
+        assertEquals(20, engine.eval("a"));
+    }
+
+    @Test
+    void testEnginePool() throws Exception {
+        Engine template = new Engine();
+        template.setRootBinding("host", "h");
+        template.eval("var greeting = 'hello'");
+        EnginePool pool = new EnginePool(template, 2);
+        Engine engine = pool.borrow();
+        Context cached = engine.context;
+        assertEquals("hello h", engine.eval("greeting + ' ' + host"));
+        engine.eval("var leak = 1; greeting = 'bye'");
+        assertEquals(1, pool.getInUse());
+        pool.release(engine);
+        assertEquals(0, pool.getInUse());
+        Engine again = pool.borrow();
+        assertSame(engine, again);
+        assertSame(cached, again.context); // reset in place
+        assertEquals("hello", cached.get("greeting"));
+        assertEquals(0, cached.getStatementCount());
+        assertEquals("hello", again.eval("greeting"));
+        assertNull(again.eval("typeof leak === 'undefined' ? null : leak"));
+        Engine second = pool.borrow();
+        assertNull(pool.borrow(1, TimeUnit.MILLISECONDS));
+        pool.release(second);
+        pool.release(again);
+        assertEquals(2, pool.getCreated());
+        assertEquals(3, pool.getBorrowCount());
+        assertEquals("hello", pool.execute(e -> e.eval("greeting")));
+        // a double release or a foreign engine is rejected before it is reset
+        assertThrows(RuntimeException.class, () -> pool.release(again));
+        Engine foreign = Engine.fromSnapshot(template.snapshot());
+        foreign.eval("var mine = 1");
+        assertThrows(RuntimeException.class, () -> pool.release(foreign));
+        assertEquals(1, foreign.eval("mine"));
+        assertEquals(0, pool.getInUse());
+        assertEquals(2, pool.getIdle());
+    }
+
+    @Test
+    void testShared() throws Exception {
+        Shared shared = new Shared();
+        AtomicInteger computed = new AtomicInteger();
+        shared.put("compute", (Invokable) args -> computed.incrementAndGet());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                Engine engine = new Engine();
+                engine.setRootBinding("shared", shared);
+                for (int j = 0; j < 250; j++) {
+                    engine.eval("shared.increment('count'); shared.computeIfAbsent('cache', k => shared.compute())");
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, shared.get("count"));
+        assertEquals(1, computed.get());
+        assertEquals(1, shared.get("cache"));
+        Engine engine = new Engine();
+        engine.setRootBinding("shared", shared);
+        assertEquals(true, engine.eval("shared.compareAndSet('count', 1000, 'done')"));
+        assertEquals(false, engine.eval("shared.compareAndSet('count', 1000, 'again')"));
+        assertEquals("done", engine.eval("shared.count"));
+        assertEquals(true, engine.eval("shared.compareAndSet('missing', null, 5)"));
+        assertEquals(7, engine.eval("shared.increment('missing', 2)"));
+        engine.eval("shared.empty = null");
+        assertNull(engine.eval("shared.empty"));
+        // a read while the value is being computed does not block, a nested compute for the same key fails
+        assertEquals(true, engine.eval("shared.computeIfAbsent('lazy', k => shared.lazy === undefined)"));
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> engine.eval("shared.computeIfAbsent('again', k => shared.computeIfAbsent('again', k => 1))"));
+        assertTrue(e.getMessage().contains("computeIfAbsent() for 'again' is already running on this thread"));
+        assertEquals(1, engine.eval("shared.computeIfAbsent('again', k => 1)"));
+        e = assertThrows(RuntimeException.class, () -> engine.eval("shared.computeIfAbsent('x', 1)"));
+        assertTrue(e.getMessage().contains("computeIfAbsent() expects a function"));
+        e = assertThrows(RuntimeException.class, () -> engine.eval("shared.increment(1)"));
+        assertTrue(e.getMessage().contains("increment() expects a key"));
+    }
+
+    @Test
+    void testParallel() throws Exception {
+        Engine engine = new Engine();
+        assertEquals(List.of(1, 4, 9), engine.eval("Parallel.all([1, 2, 3].map(x => () => x * x))"));
+        assertEquals("ab", engine.eval("var t = Parallel.submit(() => 'a' + 'b'); t.join()"));
+        assertEquals(true, engine.eval("t.done"));
+        assertEquals("failed", engine.eval("var r; try { Parallel.all([() => 1, () => { throw 'failed' }]) } catch (e) { r = e } r"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            engine.setRootBinding("Parallel", new Parallel(executor));
+            assertEquals(List.of("x", "y"), engine.eval("Parallel.all([() => 'x', () => 'y'])"));
+            // the first failure cancels the others, which stop at their next statement
+            assertEquals("failed", engine.eval("var r; try { Parallel.all([() => { var i = 0; while (true) { i++ } }, () => { throw 'failed' }]) }"
+                    + " catch (e) { r = e } r"));
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testEvalAsync() throws Exception {
+        Engine engine = new Engine();
+        CompletableFuture<Object> future = engine.evalAsync(Source.of("a + b"), Map.of("a", 1, "b", 2));
+        assertEquals(3, future.get(5, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> engine.evalAsync("foo()").get());
+        assertTrue(error.getCause().getMessage().startsWith("js failed"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        engine.setExecutor(executor);
+        AtomicInteger progress = new AtomicInteger(); // the engine itself is not read while it runs
+        engine.set("progress", progress);
+        CompletableFuture<Object> endless = engine.evalAsync("while (true) { progress.incrementAndGet() }");
+        while (progress.get() == 0) {
+            Thread.sleep(1);
+        }
+        assertTrue(endless.cancel(false));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        int count = progress.get();
+        assertEquals(3, engine.eval("1 + 2"));
+        assertEquals(count, progress.get());
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> engine.evalAsync("1").get());
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+        assertThrows(CancellationException.class, endless::join);
+    }
+
 }
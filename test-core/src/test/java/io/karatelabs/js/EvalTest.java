@@ -125,6 +125,18 @@ class EvalTest extends EvalBase {
         assertEquals(false, eval("2 === '2'"));
     }
 
+    @Test
+    void testTypeFeedback() {
+        match(eval("function f(a, b) { return a + b }; [f(1, 2), f(1.5, 2), f('a', 1), f(1, 2)]"), "[3, 3.5, 'a1', 3]");
+        match(eval("function f(a, b) { return a - b }; [f(3, 1), f(1.5, 1), f('3', 1), f(3, 1)]"), "[2, 0.5, 2, 2]");
+        match(eval("function f(a, b) { return a < b }; [f(1, 2), f(1.5, 2.5), f(1, 2.5), f('1', 2), f(2, 1)]"), "[true, true, true, true, false]");
+        match(eval("function f(a, b) { return a === b }; [f(1, 1), f(1, 2), f(1, '1'), f(2, 2)]"), "[true, false, false, true]");
+        assertEquals(2147483648L, eval("var a = 2147483647; a + 1"));
+        assertEquals(-2147483649L, eval("var a = -2147483648; a - 1"));
+        assertEquals(2147483648L, eval("var a = 2147483646; for (var i = 0; i < 2; i++) a++; a"));
+        assertEquals(0, eval("var n = 0; for (var i = 0; i < 3; i++) { n++; n--; } n"));
+    }
+
     @Test
     void testLogicNonNumbers() {
         assertEquals(false, eval("'a' == 'b'"));
@@ -61,6 +61,106 @@ class JavaInteropTest extends EvalBase {
         NodeUtils.match(get("c"), "[1, 2]");
     }
 
+    @Test
+    void testJavaInteropRepeated() {
+        // the second time round, members are resolved from the cache
+        for (int i = 0; i < 2; i++) {
+            assertEquals("hellofoo", eval("var b = new io.karatelabs.js.DemoPojo(); b.doWork('foo')"));
+            assertEquals("hellofootrue", eval("var b = new io.karatelabs.js.DemoPojo(); b.doWork('foo', true)"));
+            assertEquals("hellonull", eval("var b = new io.karatelabs.js.DemoPojo(); b.doWork(null)"));
+            NodeUtils.match(eval("var b = new io.karatelabs.js.DemoPojo(); b.intArray = [1, 2]; b.intArray"), "[1, 2]");
+            assertEquals(true, eval("var b = new io.karatelabs.js.DemoPojo(); b.booleanValue = true; b.booleanValue"));
+            assertEquals("instance-field", eval("var b = new io.karatelabs.js.DemoPojo(); b.instanceField"));
+        }
+    }
+
+    @Test
+    void testTypeExists() {
+        for (int i = 0; i < 2; i++) {
+            assertTrue(Engine.JAVA_BRIDGE.typeExists("java.util.UUID"));
+            assertFalse(Engine.JAVA_BRIDGE.typeExists("config.foo.bar"));
+            assertEquals(Undefined.INSTANCE, eval("var config = { foo: {} }; config.foo.bar"));
+        }
+    }
+
+    @Test
+    void testProbe() {
+        assertEquals(Undefined.INSTANCE, Engine.JAVA_BRIDGE.probe(new DemoPojo(), "maybeProp"));
+        assertEquals("instance-field", Engine.JAVA_BRIDGE.probe(new DemoPojo(), "instanceField"));
+        assertEquals(Undefined.INSTANCE, Engine.JAVA_BRIDGE.probeStatic(Integer.class, "NOPE"));
+        assertEquals(Integer.MAX_VALUE, Engine.JAVA_BRIDGE.probeStatic(Integer.class, "MAX_VALUE"));
+        assertEquals(true, eval("var b = new io.karatelabs.js.DemoPojo(); var c = 0; for (var i = 0; i < 3; i++) { if (!b.maybeProp) c++ } c === 3"));
+    }
+
+    @Test
+    void testBridgeGetOverride() {
+        JavaBridge original = Engine.JAVA_BRIDGE;
+        Engine.JAVA_BRIDGE = new JavaBridge() {
+            @Override
+            public Object get(Object object, String name) {
+                if (name.equals("instanceField")) {
+                    throw new RuntimeException("hidden");
+                }
+                return JavaBridge.super.get(object, name);
+            }
+        };
+        try {
+            assertEquals(true, eval("var b = new io.karatelabs.js.DemoPojo(); b.instanceField === undefined"));
+            assertEquals(true, eval("var b = new io.karatelabs.js.DemoPojo(); b.maybeProp === undefined"));
+            assertEquals(Integer.MAX_VALUE, eval("java.lang.Integer.MAX_VALUE"));
+        } finally {
+            Engine.JAVA_BRIDGE = original;
+        }
+        assertEquals("instance-field", eval("var b = new io.karatelabs.js.DemoPojo(); b.instanceField"));
+    }
+
+    @Test
+    void testOverloadResolution() {
+        assertEquals(2, eval("java.lang.Math.max(1, 2)"));
+        assertEquals(2.5, eval("java.lang.Math.max(1, 2.5)"));
+        assertEquals("a-b", eval("java.lang.String.format('%s-%s', 'a', 'b')"));
+        assertEquals(List.of(1, 2), eval("java.util.Arrays.asList(1, 2)"));
+        assertEquals("[1, 2]", eval("java.util.Arrays.toString([1, 2])"));
+        assertEquals(7, eval("var b = new io.karatelabs.js.DemoPojo(); b.intValue = 7.0; b.intValue"));
+    }
+
+    @Test
+    void testArrayView() {
+        assertEquals(10, eval("var b = new io.karatelabs.js.DemoPojo(); b.intArray = [1, 2, 3]; var a = b.intArray; a[0] = 10; b.intArray[0]"));
+        int[] ints = new int[]{1, 2};
+        assertSame(ints, JavaConverter.toArray(ArrayView.of(ints), int.class));
+        assertEquals(List.of(1, 2, 3), eval("var b = new io.karatelabs.js.DemoPojo(); b.intArray = [1, 2]; var a = b.intArray; a.push(3); a"));
+        assertEquals(2, eval("var b = new io.karatelabs.js.DemoPojo(); b.intArray = [1, 2]; var a = b.intArray; a.push(3); b.intArray.length"));
+        assertEquals(6, eval("var b = new io.karatelabs.js.DemoPojo(); b.intArray = [1, 2, 3]; b.intArray.reduce((x, y) => x + y, 0)"));
+        assertEquals("[104, 105]", eval("java.util.Arrays.toString('hi'.getBytes())"));
+        assertEquals("[1, 2]", eval("java.util.Arrays.toString([1, 2.0])"));
+        assertThrows(RuntimeException.class, () -> eval("var b = new io.karatelabs.js.DemoPojo(); b.intArray = [1, 1.5]"));
+        assertArrayEquals(new long[]{1, 2}, (long[]) JavaConverter.toArray(List.of(1, 2.0), long.class));
+        assertArrayEquals(new char[]{'a'}, (char[]) JavaConverter.toArray(List.of("a"), char.class));
+        // writes follow the same exactness rule as setters
+        List<Object> intView = ArrayView.of(ints);
+        intView.set(0, 3.0);
+        assertEquals(3, ints[0]);
+        assertThrows(RuntimeException.class, () -> intView.set(0, 1.5));
+        assertThrows(RuntimeException.class, () -> ArrayView.of(new byte[1]).set(0, 300));
+        assertThrows(RuntimeException.class, () -> ArrayView.of(new long[1]).set(0, "abc"));
+        assertThrows(RuntimeException.class, () -> ArrayView.of(new short[1]).set(0, 0.5));
+        char[] chars = new char[1];
+        ArrayView.of(chars).set(0, "x");
+        assertEquals('x', chars[0]);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> ArrayView.of(chars).set(0, ""));
+        assertTrue(e.getMessage().contains("expected a single character"));
+    }
+
+    @Test
+    void testFunctionalInterfaceProxy() {
+        assertEquals(List.of(4, 6), eval("java.util.stream.Stream.of(1, 2, 3).filter(x => x > 1).map(x => x * 2).collect(java.util.stream.Collectors.toList())"));
+        assertEquals(List.of(3, 2, 1), eval("var list = [1, 3, 2]; java.util.Collections.sort(list, (a, b) => b - a); list"));
+        assertEquals(true, eval("var done = false; var t = new java.lang.Thread(() => { done = true }); t.run(); done"));
+        assertEquals(3, eval("var set = new java.util.TreeSet((a, b) => b - a); set.add(1); set.add(3); set.add(2); set.first()"));
+        assertEquals(15, eval("java.util.stream.IntStream.rangeClosed(1, 5).reduce(0, (a, b) => a + b)"));
+    }
+
     @Test
     void testJavaInteropJdk() {
         assertEquals("bar", eval("var props = new java.util.Properties(); props.put('foo', 'bar'); props.get('foo')"));
@@ -70,4 +170,82 @@ class JavaInteropTest extends EvalBase {
         assertInstanceOf(UUID.class, eval("java.util.UUID.randomUUID()"));
     }
 
+    @Test
+    void testResolvedCacheBounded() {
+        JavaMembers members = JavaMembers.of(StringBuilder.class);
+        for (int i = 0; i < JavaMembers.MAX_RESOLVED * 2; i++) {
+            assertNull(members.findMethod("missing" + i, new Object[]{i}));
+        }
+        assertTrue(members.resolved.size() <= JavaMembers.MAX_RESOLVED);
+        assertNotNull(members.findMethod("append", new Object[]{"a"}));
+    }
+
+    @Test
+    void testNarrowingFraction() {
+        assertEquals('b', eval("new java.lang.StringBuilder('abc').charAt(4 / 4)"));
+        assertEquals('b', eval("new java.lang.StringBuilder('abc').charAt(1.0)"));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> eval("new java.lang.StringBuilder('abc').charAt(1.5)"));
+        assertTrue(e.getMessage().contains("cannot convert 1.5 to int"), e.getMessage());
+        assertThrows(RuntimeException.class, () -> eval("java.lang.Integer.toHexString(1e20)"));
+        assertEquals(3.5, eval("java.lang.Math.abs(-3.5)"));
+        DemoPojo pojo = new DemoPojo();
+        Engine engine = new Engine();
+        engine.set("pojo", pojo);
+        engine.eval("pojo.intValue = 6 / 2");
+        assertEquals(3, pojo.getIntValue());
+        assertThrows(RuntimeException.class, () -> engine.eval("pojo.intValue = 2.5"));
+        assertEquals(0.1f, JavaConverter.toExactNumber(float.class, 0.1));
+        assertEquals((short) 7, JavaConverter.toExactNumber(short.class, 7));
+        assertThrows(RuntimeException.class, () -> JavaConverter.toExactNumber(long.class, Double.NaN));
+        assertEquals(3, pojo.getIntValue());
+    }
+
+    public static class StaticGetter {
+
+        public static String getName() {
+            return "static";
+        }
+
+        public String getValue() {
+            return "instance";
+        }
+
+    }
+
+    @Test
+    void testStaticGetter() {
+        Engine engine = new Engine();
+        engine.set("foo", new StaticGetter());
+        assertEquals("static", engine.eval("foo.name"));
+        assertEquals("instance", engine.eval("foo.value"));
+        NodeUtils.match(new JavaObject(new StaticGetter()).toMap(), "{ value: 'instance' }");
+    }
+
+    public interface BoxedSupplier {
+
+        Integer get();
+
+    }
+
+    public interface CharSupplier {
+
+        char get();
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFunctionalInterfaceReturns() {
+        Engine engine = new Engine();
+        BoxedSupplier boxed = (BoxedSupplier) JavaProxy.of(JavaProxy.sam(BoxedSupplier.class), (JsFunction) engine.eval("() => null"));
+        assertNull(boxed.get());
+        CharSupplier chars = (CharSupplier) JavaProxy.of(JavaProxy.sam(CharSupplier.class), (JsFunction) engine.eval("() => 'x'"));
+        assertEquals('x', chars.get());
+        CharSupplier empty = (CharSupplier) JavaProxy.of(JavaProxy.sam(CharSupplier.class), (JsFunction) engine.eval("() => ''"));
+        assertThrows(RuntimeException.class, empty::get);
+        java.util.Comparator<Object> comparator = (java.util.Comparator<Object>) JavaProxy.of(JavaProxy.sam(java.util.Comparator.class), (JsFunction) engine.eval("(a, b) => a - b"));
+        assertTrue(comparator.reversed().compare(1, 2) > 0);
+        assertEquals(List.of(3, 2, 1), engine.eval("var list = [1, 3, 2]; java.util.Collections.sort(list, java.util.Collections.reverseOrder((a, b) => a - b)); list"));
+    }
+
 }
@@ -2,9 +2,14 @@ package io.karatelabs.js;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class JavaObjectTest {
@@ -32,6 +37,55 @@ class JavaObjectTest {
         NodeUtils.match(jo.toMap(), "{ stringValue: 'foo', integerArray: null, intValue: 5, instanceField: 'instance-field', booleanValue: true, doubleValue: 0.0, intArray: null }");
     }
 
+    @Test
+    void testToMapLive() {
+        DemoPojo dp = new DemoPojo();
+        dp.setIntArray(new int[]{1, 2});
+        dp.setIntegerArray(new Integer[]{3, null});
+        JavaObject jo = new JavaObject(dp);
+        Map<String, Object> map = jo.toMap();
+        assertEquals(7, map.size());
+        assertTrue(map.containsKey("intValue"));
+        assertFalse(map.containsKey("class"));
+        assertEquals(Arrays.asList(1, 2), map.get("intArray"));
+        assertEquals(Arrays.asList(3, null), map.get("integerArray"));
+        dp.setIntValue(42);
+        assertEquals(42, map.get("intValue"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testToMapCycle() {
+        Map<String, Object> map = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        map.put("list", list);
+        list.add(map);
+        list.add(new int[]{1, 2});
+        Map<String, Object> view = (Map<String, Object>) JavaBeanMap.toValue(map);
+        List<Object> nested = (List<Object>) view.get("list");
+        assertEquals(2, nested.size());
+        assertEquals(Arrays.asList(1, 2), nested.get(1));
+        Map<String, Object> again = (Map<String, Object>) nested.get(0);
+        assertTrue(again.containsKey("list"));
+        list.add("live");
+        assertEquals("live", nested.get(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testToMapNonStringKeys() {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(1, "one");
+        map.put(null, "none");
+        Map<String, Object> view = (Map<String, Object>) JavaBeanMap.toValue(map);
+        assertTrue(view.containsKey("1"));
+        assertEquals("one", view.get("1"));
+        assertEquals("none", view.get("null"));
+        assertFalse(view.containsKey(1));
+        assertFalse(view.containsKey("2"));
+        assertEquals(Map.of("1", "one", "null", "none"), new HashMap<>(view));
+    }
+
     @Test
     void testSet() {
         DemoPojo dp = new DemoPojo();
@@ -61,6 +115,19 @@ class JavaObjectTest {
         JavaInvokable method = new JavaInvokable("varArgs", jo);
         assertEquals("foo", method.invoke(null, "foo"));
         assertEquals("bar", method.invoke(null, "foo", "bar"));
+        assertEquals("bar", method.invoke(Arrays.asList("foo", "bar")));
+        assertEquals("bar", method.invoke((Object) new Object[]{"foo", "bar"}));
+    }
+
+    @Test
+    void testNumberConversion() {
+        JavaClass jc = new JavaClass("java.lang.Long");
+        assertEquals("ff", jc.call("toHexString", new Object[]{255}));
+        assertEquals(5L, jc.call("valueOf", new Object[]{5}));
+        DemoPojo dp = new DemoPojo();
+        JavaObject jo = new JavaObject(dp);
+        jo.put("doubleValue", 5);
+        assertEquals(5.0, jo.get("doubleValue"));
     }
 
     @Test
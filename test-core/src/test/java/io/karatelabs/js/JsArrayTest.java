@@ -2,6 +2,9 @@ package io.karatelabs.js;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class JsArrayTest extends EvalBase {
@@ -40,6 +43,15 @@ class JsArrayTest extends EvalBase {
         matchEval("var str = 'abc'; var arr = [...str]; arr", "['a', 'b', 'c']");
     }
 
+    @Test
+    void testArrayNestedIteration() {
+        match(eval("[[1, 2], [3, 4]].map(x => x)"), "[[1, 2], [3, 4]]");
+        match(eval("[[1, 2], [3, 4]].filter(x => x[0] > 1)"), "[[3, 4]]");
+        match(eval("var a = []; for (var x of [[1, 2], [3, 4]]) a.push(x[1]); a"), "[2, 4]");
+        match(eval("var a = []; for (var k in ['x', 'y']) a.push(k); a"), "['0', '1']");
+        match(eval("var a = []; for (var k in { foo: 1, bar: 2 }) a.push(k); a"), "['foo', 'bar']");
+    }
+
     @Test
     void testArrayProp() {
         assertEquals(2, eval("a = [1, 2]; a[1]"));
@@ -245,4 +257,28 @@ class JsArrayTest extends EvalBase {
         assertEquals(-1, eval("[1, 2, 3, 2].lastIndexOf(4, 0)"));
     }
 
+    @Test
+    void testArrayParallel() {
+        matchEval("[1, 2, 3].parallelMap(x => x * 2)", "[2, 4, 6]");
+        matchEval("[1, 2, 3, 4].parallelFilter(x => x % 2 == 0)", "[2, 4]");
+        assertEquals(10, eval("[1, 2, 3, 4].parallelReduce((a, b) => a + b, 0)"));
+        assertEquals(10, eval("[1, 2, 3, 4].parallelReduce((a, b) => a + b)"));
+        assertEquals(true, eval("var a = []; for (var i = 0; i < 10000; i++) a.push(i); var m = a.parallelMap((x, i) => Math.floor(x / 2) * 2 + i % 2); var ok = true; for (var i = 0; i < 10000; i++) if (m[i] != i) ok = false; ok"));
+        assertEquals(5000, eval("var a = []; for (var i = 0; i < 10000; i++) a.push(i); a.parallelFilter(x => x % 2 == 0).length"));
+        assertEquals("caught", eval("var r; try { [1, 2].parallelMap(x => { throw 'boom' }) } catch (e) { r = 'caught' } r"));
+    }
+
+    @Test
+    void testArrayParallelPool() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Engine engine = new Engine();
+            engine.set("pool", pool);
+            assertEquals(49995000, engine.eval("var a = []; for (var i = 0; i < 10000; i++) a.push(i); a.parallelReduce((x, y) => x + y, 0, pool)"));
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
 }
@@ -2,9 +2,11 @@ package io.karatelabs.js;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 class JsFunctionTest extends EvalBase {
@@ -101,6 +103,27 @@ class JsFunctionTest extends EvalBase {
         assertEquals("hello world", eval("var concat = (first, ...rest) => first + ' ' + rest.join(' '); concat('hello', 'world')"));
     }
 
+    @Test
+    void testFunctionInvokeArity() {
+        eval("var a = function(x, y){ return x + y }");
+        Invokable fn = (Invokable) get("a");
+        assertEquals(3, fn.invoke2(1, 2));
+        assertEquals(3, fn.invoke(1, 2));
+        assertEquals("1undefined", fn.invoke1(1));
+        assertEquals(List.of(1, 2, 3), eval("var b = function(){ return arguments }; b(1, 2, 3)"));
+        assertEquals(List.of(), eval("function c(...rest) { return rest }; c()"));
+        assertEquals(List.of(2, 3), eval("function d(first, ...rest) { return rest }; d(1, 2, 3)"));
+    }
+
+    @Test
+    void testFunctionFrameReuse() {
+        match(eval("var f = x => { var y = x * 2; return y }; [f(1), f(2), [1, 2, 3].map(f)]"), "[2, 4, [2, 4, 6]]");
+        match(eval("function f(x) { if (x) return () => x; return x }; f(0); var g = f(5); f(0); var h = f(7); f(0); [g(), h()]"), "[5, 7]");
+        match(eval("function fib(n) { return n < 2 ? n : fib(n - 1) + fib(n - 2) }; [fib(10), fib(1)]"), "[55, 1]");
+        match(eval("function f(a) { var b, c, d, e, g, h, i, j; b = c = d = e = g = h = i = j = a; return [a, j] }; [f(1), f(2)]"), "[[1, 1], [2, 2]]");
+        match(eval("function f(x) { var y; return y }; f(1); f(2)"), "undefined");
+    }
+
     @Test
     void testCurrying() {
         matchEval("function multiply(a) { return function(b) { return a * b } }; multiply(4)(7)", "28");
@@ -111,4 +134,25 @@ class JsFunctionTest extends EvalBase {
         matchEval("(function(){ return 'hello' })()", "'hello'");
     }
 
+    @Test
+    void testFunctionReceiver() {
+        assertEquals("a", eval("function name() { return this.name }; var a = { name: 'a', fn: name }; var b = { name: 'b', fn: name }; a.fn()"));
+        assertEquals("ba", eval("function name() { return this.name }; var a = { name: 'a', fn: name }; var b = { name: 'b', fn: name }; b.fn() + a.fn()"));
+        assertEquals("c", eval("function name() { return this.name }; name.call({ name: 'c' })"));
+        assertEquals(3, eval("[1, 2, 3].map.call([4, 5, 6], x => x).length"));
+        assertEquals("caught", eval("var r; try { [1].forEach(x => { throw 'boom' }) } catch (e) { r = 'caught' } r"));
+    }
+
+    @Test
+    void testCallbackErrorIgnored() {
+        Engine engine = new Engine();
+        List<Exception> errors = new ArrayList<>();
+        engine.context.setIgnoreErrors(true);
+        engine.context.setOnError((node, e) -> errors.add(e));
+        assertEquals("after", engine.eval("[1].forEach(x => { throw 'boom' }); 'after'"));
+        assertEquals(1, engine.context.getErrorCount());
+        assertInstanceOf(JsException.class, errors.get(0));
+        assertEquals("boom", ((JsException) errors.get(0)).getValue());
+    }
+
 }
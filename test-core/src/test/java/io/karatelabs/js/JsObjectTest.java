@@ -2,7 +2,13 @@ package io.karatelabs.js;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class JsObjectTest extends EvalBase {
 
@@ -100,4 +106,83 @@ class JsObjectTest extends EvalBase {
         matchEval("var obj1 = {a: 1, b: 2}; var obj2 = {b: 3, c: 4}; var obj3 = {...obj2, ...obj1}; obj3", "{ b: 2, c: 4, a: 1 }");
     }
 
+    @Test
+    void testObjectFreeze() {
+        matchEval("Object.freeze({ a: 1, b: [1, 2] })", "{ a: 1, b: [1, 2] }");
+        assertEquals(true, eval("var o = Object.freeze({ a: 1 }); Object.isFrozen(o)"));
+        assertEquals(false, eval("Object.isFrozen({ a: 1 })"));
+        assertEquals(3, eval("var o = Object.freeze({ a: { b: 1 } }); o.a.b = 3; o.a.b"));
+        assertTrue(assertThrows(RuntimeException.class, () -> eval("var o = Object.freeze({ a: 1 }); o.a = 2"))
+                .getMessage().contains("cannot modify a frozen object"));
+        assertTrue(assertThrows(RuntimeException.class, () -> eval("var o = Object.deepFreeze({ a: { b: [1] } }); o.a.b.push(2)"))
+                .getMessage().contains("cannot modify a frozen object"));
+        assertEquals(2, eval("var o = Object.deepFreeze({ a: { b: [1, 2] } }); o.a.b[1]"));
+        assertEquals(39, eval("var o = {}; for (var i = 0; i < 20; i++) o['k' + i] = i; var f = Object.freeze(o); f.k19 + f.k1 + Object.keys(f).length - 1"));
+        assertEquals("k0,k1,k2", eval("Object.keys(Object.freeze({ k0: 0, k1: 1, k2: 2 })).join(',')"));
+    }
+
+    @Test
+    void testConcurrentObject() {
+        matchEval("var o = new ConcurrentObject(); o.a = 1; o['b'] = 2; o", "{ a: 1, b: 2 }");
+        assertEquals("a,b", eval("var o = new ConcurrentObject({ a: 1, b: 2 }); var keys = []; for (var k in o) keys.push(k); keys.join(',')"));
+        assertEquals(true, eval("var o = new ConcurrentObject({ a: 1 }); o.hasOwnProperty('a')"));
+        matchEval("var a = new ConcurrentArray([1, 2]); a.push(3); a.map(x => x * 2)", "[2, 4, 6]");
+        assertEquals(3, eval("var a = new ConcurrentArray(); a.push(1); a.push(2); a.push(3); a.length"));
+        assertEquals(6, eval("var a = new ConcurrentArray([1, 2, 3]); var sum = 0; for (var x of a) sum += x; sum"));
+    }
+
+    @Test
+    void testConcurrentObjectThreads() throws Exception {
+        ConcurrentObject object = new ConcurrentObject();
+        ConcurrentArray array = new ConcurrentArray();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int n = i;
+            threads[i] = new Thread(() -> {
+                Engine engine = new Engine();
+                engine.set("o", object);
+                engine.set("a", array);
+                engine.set("n", n);
+                for (int j = 0; j < 500; j++) {
+                    engine.set("j", j);
+                    engine.eval("o['k' + n + '_' + j] = j; a.push(j); var keys = Object.keys(o)");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, object.size());
+        assertEquals(2000, array.size());
+    }
+
+    @Test
+    void testConcurrentArrayPushPop() throws Exception {
+        ConcurrentArray array = new ConcurrentArray();
+        AtomicInteger misses = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    Engine engine = new Engine();
+                    engine.set("a", array);
+                    engine.set("misses", misses);
+                    engine.eval("for (var j = 0; j < 500; j++) { a.push(j, j, j); var x = j % 2 == 0 ? a.pop() : a.shift();"
+                            + " var y = a.splice(0, 1); if (x === undefined || y.length != 1) misses.incrementAndGet() }");
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+        assertEquals(0, misses.get());
+        assertEquals(2000, array.size());
+    }
+
 }
@@ -19,6 +19,24 @@ class JsStringTest extends EvalBase {
         assertEquals("abc", eval("'a' + 'b' + 'c'"));
     }
 
+    @Test
+    void testStringConcatLoop() {
+        assertEquals("01234", eval("var s = ''; for (var i = 0; i < 5; i++) s += i; s"));
+        assertEquals("0123", eval("var s = ''; for (var i = 0; i < 4; i++) { s += i }"));
+        assertEquals("ab", eval("var s = 'a'; var t = s; s += 'b'; t += 'b'; t"));
+        assertEquals("a", eval("var s = 'a'; var t = s; s += 'b'; t"));
+        assertEquals("xab", eval("var s = 'x'; function f(v) { s += v }; f('a'); f('b'); s"));
+        assertEquals(3, eval("var n = 1; n += 2; n"));
+        assertEquals("1a", eval("var n = 1; n += 'a'; n"));
+        assertEquals("3xyz", eval("1 + 2 + 'x' + 'y' + 'z'"));
+        assertEquals("x12", eval("'x' + 1 + 2"));
+        assertEquals("ab!", eval("var s = 'a'; var t = (s += 'b') + '!'; t"));
+        Object result = eval("var s = ''; s += 'a'; s += 'b'");
+        assertEquals("ab", result);
+        assertInstanceOf(String.class, get("s"));
+        assertInstanceOf(String.class, context.getBindings().get("s"));
+    }
+
     @Test
     void testStringWithEscapes() {
         assertEquals("foo\nbar", eval("'foo\nbar'"));